@@ -20,30 +20,37 @@ public class AzimuthalEquidistantProjection extends AzimuthalProjection {
     }
 
     @Override
-    public Point2D locationToMap(Location location) {
-        if (location.equals(getCenter())) {
-            return new Point2D(0d, 0d);
-        }
-
-        double[] azimuthDistance = getAzimuthDistance(getCenter(), location);
-        double azimuth = azimuthDistance[0];
-        double distance = WGS84_EQUATORIAL_RADIUS * azimuthDistance[1];
+    public AzimuthalProjection withCenter(Location center) {
+        AzimuthalEquidistantProjection projection = new AzimuthalEquidistantProjection(getCrsId());
+        projection.setCenter(center);
+        return projection;
+    }
 
-        return new Point2D(distance * Math.sin(azimuth), distance * Math.cos(azimuth));
+    @Override
+    public Point2D locationToMap(Location location) {
+        return locationToMap(location, AzimuthalEquidistantProjection::mapDistance);
     }
 
     @Override
     public Location mapToLocation(Point2D point) {
-        double x = point.getX();
-        double y = point.getY();
+        return mapToLocation(point, AzimuthalEquidistantProjection::distance);
+    }
 
-        if (x == 0d && y == 0d) {
-            return new Location(getCenter().latitude(), getCenter().longitude());
-        }
+    @Override
+    public void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        locationToMap(src, srcOffset, dst, dstOffset, count, AzimuthalEquidistantProjection::mapDistance);
+    }
+
+    @Override
+    public void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        mapToLocation(src, srcOffset, dst, dstOffset, count, AzimuthalEquidistantProjection::distance);
+    }
 
-        double azimuth = Math.atan2(x, y);
-        double distance = Math.sqrt(x * x + y * y) / WGS84_EQUATORIAL_RADIUS;
+    private static double mapDistance(double distance) {
+        return WGS84_EQUATORIAL_RADIUS * distance;
+    }
 
-        return getLocation(getCenter(), azimuth, distance);
+    private static double distance(double mapDistance) {
+        return mapDistance / WGS84_EQUATORIAL_RADIUS;
     }
 }
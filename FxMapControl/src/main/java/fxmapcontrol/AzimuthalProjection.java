@@ -4,6 +4,7 @@
  */
 package fxmapcontrol;
 
+import java.util.function.DoubleUnaryOperator;
 import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
@@ -13,6 +14,42 @@ import javafx.geometry.Point2D;
  */
 public abstract class AzimuthalProjection extends MapProjection {
 
+    // center-dependent terms, updated by onCenterChanged
+    private double centerLatitude;
+    private double centerLongitude;
+    private double sinCenterLatitude;
+    private double cosCenterLatitude = 1d;
+
+    @Override
+    protected void onCenterChanged() {
+        double lat0 = getCenter().latitude() * Math.PI / 180d;
+        centerLatitude = getCenter().latitude();
+        centerLongitude = getCenter().longitude();
+        sinCenterLatitude = Math.sin(lat0);
+        cosCenterLatitude = Math.cos(lat0);
+    }
+
+    /**
+     * Creates a new instance of this projection with the same CRS identifier and the specified center. Map
+     * layers use such an instance to transform locations in a background thread, while the map changes the
+     * center of its own instance. The default implementation returns null, i.e. a derived class that does not
+     * override this method is only used on the JavaFX application thread.
+     */
+    public AzimuthalProjection withCenter(Location center) {
+        return null;
+    }
+
+    /**
+     * Gets a projection instance that may be used in a background thread, i.e. the projection itself when it
+     * is not azimuthal, or a new instance with its current center. Returns null when an azimuthal projection
+     * does not implement withCenter. Called on the JavaFX application thread.
+     */
+    static MapProjection getBackgroundProjection(MapProjection projection) {
+        return projection instanceof AzimuthalProjection azimuthalProjection
+                ? azimuthalProjection.withCenter(azimuthalProjection.getCenter())
+                : projection;
+    }
+
     @Override
     public Bounds boundingBoxToBounds(MapBoundingBox boundingBox) {
         if (boundingBox instanceof CenteredBoundingBox cbbox) {
@@ -34,6 +71,138 @@ public abstract class AzimuthalProjection extends MapProjection {
         return new CenteredBoundingBox(center, bounds.getWidth(), bounds.getHeight()); // width and height in meters
     }
 
+    /**
+     * Transforms a Location to a Point2D in map coordinates. The mapDistance function transforms the
+     * spherical distance in radians from the projection center to the map distance in meters.
+     */
+    protected final Point2D locationToMap(Location location, DoubleUnaryOperator mapDistance) {
+        double latitude = location.latitude();
+        double longitude = location.longitude();
+
+        if (latitude == centerLatitude && longitude == centerLongitude) {
+            return new Point2D(0d, 0d);
+        }
+
+        // see getAzimuthDistance
+        //
+        double lat2 = latitude * Math.PI / 180d;
+        double dLon = (longitude - centerLongitude) * Math.PI / 180d;
+        double cosLat2 = Math.cos(lat2);
+        double sinLat2 = Math.sin(lat2);
+        double cosLon12 = Math.cos(dLon);
+        double sinLon12 = Math.sin(dLon);
+        double cosDistance = sinCenterLatitude * sinLat2 + cosCenterLatitude * cosLat2 * cosLon12;
+        double azimuth = Math.atan2(sinLon12, cosCenterLatitude * sinLat2 / cosLat2 - sinCenterLatitude * cosLon12);
+        double distance = mapDistance.applyAsDouble(Math.acos(Math.max(Math.min(cosDistance, 1d), -1d)));
+
+        return new Point2D(distance * Math.sin(azimuth), distance * Math.cos(azimuth));
+    }
+
+    /**
+     * Transforms a Point2D in map coordinates to a Location. The distance function transforms the map
+     * distance in meters from the projection center to the spherical distance in radians.
+     */
+    protected final Location mapToLocation(Point2D point, DoubleUnaryOperator distance) {
+        double x = point.getX();
+        double y = point.getY();
+
+        if (x == 0d && y == 0d) {
+            return new Location(centerLatitude, centerLongitude);
+        }
+
+        // see getLocation
+        //
+        double azimuth = Math.atan2(x, y);
+        double d = distance.applyAsDouble(Math.sqrt(x * x + y * y));
+        double sinDistance = Math.sin(d);
+        double cosDistance = Math.cos(d);
+        double cosAzimuth = Math.cos(azimuth);
+        double sinAzimuth = Math.sin(azimuth);
+        double sinLat2 = sinCenterLatitude * cosDistance + cosCenterLatitude * sinDistance * cosAzimuth;
+        double lat2 = Math.asin(Math.max(Math.min(sinLat2, 1d), -1d));
+        double dLon = Math.atan2(sinDistance * sinAzimuth, cosCenterLatitude * cosDistance - sinCenterLatitude * sinDistance * cosAzimuth);
+
+        return new Location(180d / Math.PI * lat2, centerLongitude + 180d / Math.PI * dLon);
+    }
+
+    /**
+     * Transforms interleaved latitude and longitude values to interleaved x and y map coordinates like
+     * locationToMap(double[], int, double[], int, int). The mapDistance function transforms the spherical
+     * distance in radians from the projection center to the map distance in meters.
+     */
+    protected final void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count,
+            DoubleUnaryOperator mapDistance) {
+
+        double cosLat1 = cosCenterLatitude;
+        double sinLat1 = sinCenterLatitude;
+
+        for (int i = 0; i < 2 * count; i += 2) {
+            double latitude = src[srcOffset + i];
+            double longitude = src[srcOffset + i + 1];
+            double x = 0d;
+            double y = 0d;
+
+            if (latitude != centerLatitude || longitude != centerLongitude) {
+                // see getAzimuthDistance
+                //
+                double lat2 = latitude * Math.PI / 180d;
+                double dLon = (longitude - centerLongitude) * Math.PI / 180d;
+                double cosLat2 = Math.cos(lat2);
+                double sinLat2 = Math.sin(lat2);
+                double cosLon12 = Math.cos(dLon);
+                double sinLon12 = Math.sin(dLon);
+                double cosDistance = sinLat1 * sinLat2 + cosLat1 * cosLat2 * cosLon12;
+                double azimuth = Math.atan2(sinLon12, cosLat1 * sinLat2 / cosLat2 - sinLat1 * cosLon12);
+                double distance = mapDistance.applyAsDouble(Math.acos(Math.max(Math.min(cosDistance, 1d), -1d)));
+
+                x = distance * Math.sin(azimuth);
+                y = distance * Math.cos(azimuth);
+            }
+
+            dst[dstOffset + i] = x;
+            dst[dstOffset + i + 1] = y;
+        }
+    }
+
+    /**
+     * Transforms interleaved x and y map coordinates to interleaved latitude and longitude values like
+     * mapToLocation(double[], int, double[], int, int). The distance function transforms the map distance
+     * in meters from the projection center to the spherical distance in radians.
+     */
+    protected final void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count,
+            DoubleUnaryOperator distance) {
+
+        double cosLat1 = cosCenterLatitude;
+        double sinLat1 = sinCenterLatitude;
+
+        for (int i = 0; i < 2 * count; i += 2) {
+            double x = src[srcOffset + i];
+            double y = src[srcOffset + i + 1];
+            double latitude = centerLatitude;
+            double longitude = centerLongitude;
+
+            if (x != 0d || y != 0d) {
+                // see getLocation
+                //
+                double azimuth = Math.atan2(x, y);
+                double d = distance.applyAsDouble(Math.sqrt(x * x + y * y));
+                double sinDistance = Math.sin(d);
+                double cosDistance = Math.cos(d);
+                double cosAzimuth = Math.cos(azimuth);
+                double sinAzimuth = Math.sin(azimuth);
+                double sinLat2 = sinLat1 * cosDistance + cosLat1 * sinDistance * cosAzimuth;
+                double lat2 = Math.asin(Math.max(Math.min(sinLat2, 1d), -1d));
+                double dLon = Math.atan2(sinDistance * sinAzimuth, cosLat1 * cosDistance - sinLat1 * sinDistance * cosAzimuth);
+
+                latitude = 180d / Math.PI * lat2;
+                longitude = centerLongitude + 180d / Math.PI * dLon;
+            }
+
+            dst[dstOffset + i] = latitude;
+            dst[dstOffset + i + 1] = longitude;
+        }
+    }
+
     /**
      * Calculates azimuth and distance in radians from location1 to location2.
      */
@@ -49,6 +49,26 @@ public class EquirectangularProjection extends MapProjection {
                 point.getX() / WGS84_METERS_PER_DEGREE);
     }
 
+    @Override
+    public void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        for (int i = 0; i < 2 * count; i += 2) {
+            double latitude = src[srcOffset + i];
+            double longitude = src[srcOffset + i + 1];
+            dst[dstOffset + i] = WGS84_METERS_PER_DEGREE * longitude;
+            dst[dstOffset + i + 1] = WGS84_METERS_PER_DEGREE * latitude;
+        }
+    }
+
+    @Override
+    public void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        for (int i = 0; i < 2 * count; i += 2) {
+            double x = src[srcOffset + i];
+            double y = src[srcOffset + i + 1];
+            dst[dstOffset + i] = y / WGS84_METERS_PER_DEGREE;
+            dst[dstOffset + i + 1] = x / WGS84_METERS_PER_DEGREE;
+        }
+    }
+
     @Override
     public String getBboxValue(Bounds bounds) {
         return String.format(Locale.ROOT,
@@ -0,0 +1,40 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A GeoJSON Feature as read by GeoJsonReader. The id is a String, a Double or null, the properties contain
+ * String, Double, Boolean, List and Map values or null. The geometry is null for an unlocated feature.
+ */
+public record GeoJsonFeature(
+  Object id,
+  GeoJsonFeature.Geometry geometry,
+  Map<String, Object> properties
+) {
+    public enum GeometryType {
+        POINT, MULTI_POINT, LINE_STRING, MULTI_LINE_STRING, POLYGON, MULTI_POLYGON, GEOMETRY_COLLECTION
+    }
+
+    /**
+     * A compact GeoJSON geometry. Positions are stored as interleaved latitude and longitude values, i.e. in
+     * the order of ObservableLocationArray and MapCanvasShape, and altitudes are dropped. The coordinates
+     * contain a single array for POINT, MULTI_POINT and LINE_STRING, one array per line for
+     * MULTI_LINE_STRING, and one array per ring for POLYGON, where the first ring is the exterior ring.
+     * The parts of MULTI_POLYGON and GEOMETRY_COLLECTION are given by geometries, with empty coordinates.
+     */
+    public record Geometry(
+      GeometryType type,
+      List<double[]> coordinates,
+      List<Geometry> geometries
+    ) {
+        public Geometry {
+            coordinates = List.copyOf(coordinates);
+            geometries = List.copyOf(geometries);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import javafx.application.Platform;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.collections.ListChangeListener;
+import javafx.scene.Node;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.FillRule;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.PathElement;
+import javafx.scene.shape.StrokeLineJoin;
+
+/**
+ * A MapItemsControl that shows the features of GeoJSON text. loadAsync reads the text with a GeoJsonReader in
+ * a background thread and adds the features to the items in batches, so that features appear while the text
+ * is still being read. While reading continues, each batch is compacted by a fixed number of background
+ * threads, i.e. the vertices of its lines and rings are projected with the map projection and those that
+ * would not be visible at the maximum zoom level of the map are removed. Reading waits while a limited number
+ * of batches is still being compacted or has not yet been added to the items.
+ * <p>
+ * By default, each feature is shown by a MapItem that contains a MapPolygon for each polygon without
+ * interior rings, a MapPolyline for each line and a MapNode with a Circle for each point. A polygon with
+ * interior rings is shown by a javafx.scene.shape.Path with the style class map-polygon and an even-odd
+ * fill rule, which draws the points of an invisible MapPolygon for each ring. A different item generator
+ * may be set after construction.
+ */
+public class GeoJsonLayer extends MapItemsControl<GeoJsonFeature> {
+
+    private static final int batchSize = 256;
+    private static final double compactionTolerance = 0.25; // pixels at maximum zoom level
+    private static final int maxPendingBatches = 8;
+    private static final double pointRadius = 4d;
+
+    private static final ExecutorService loadExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ExecutorService compactionExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final DoubleProperty simplificationToleranceProperty = new SimpleDoubleProperty(this, "simplificationTolerance", 0.5);
+    private final AtomicInteger loadGeneration = new AtomicInteger();
+
+    public GeoJsonLayer() {
+        getStyleClass().add("geojson-layer");
+        setItemGenerator(this::createMapItem);
+    }
+
+    /**
+     * The simplificationTolerance of the MapPolygons and MapPolylines created by the default item
+     * generator. The default value is 0.5.
+     */
+    public final DoubleProperty simplificationToleranceProperty() {
+        return simplificationToleranceProperty;
+    }
+
+    public final double getSimplificationTolerance() {
+        return simplificationToleranceProperty.get();
+    }
+
+    public final void setSimplificationTolerance(double simplificationTolerance) {
+        simplificationToleranceProperty.set(simplificationTolerance);
+    }
+
+    /**
+     * Reads the UTF-8 encoded GeoJSON file and adds its features to the items. Completes with the number of
+     * features read. A subsequent call of loadAsync or cancelLoad stops reading.
+     * <p>
+     * Features are compacted with the map projection at the time of the call. They are not compacted when
+     * the layer has no map, or when the map projection is azimuthal, since compaction for the current
+     * projection center would remove visible vertices when the center changes.
+     */
+    public final CompletableFuture<Integer> loadAsync(Path path) {
+        return loadAsync(() -> Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads UTF-8 encoded GeoJSON text from the stream and adds its features to the items. Completes with the
+     * number of features read. A subsequent call of loadAsync or cancelLoad stops reading. Features are
+     * compacted as described for loadAsync(Path).
+     */
+    public final CompletableFuture<Integer> loadAsync(InputStream stream) {
+        return loadAsync(() -> new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stops reading GeoJSON text. Features that have already been added remain in the items.
+     */
+    public final void cancelLoad() {
+        loadGeneration.incrementAndGet();
+    }
+
+    /**
+     * Creates the MapItem of a feature. Called by the default item generator.
+     */
+    protected MapItem<GeoJsonFeature> createMapItem(GeoJsonFeature feature) {
+        MapItem<GeoJsonFeature> mapItem = new MapItem<>(feature);
+
+        if (feature.geometry() != null) {
+            addGeometryNodes(feature.geometry(), mapItem.getChildren());
+        }
+
+        return mapItem;
+    }
+
+    private CompletableFuture<Integer> loadAsync(Callable<Reader> readerFactory) {
+        int generation = loadGeneration.incrementAndGet();
+        MapBase map = getMap();
+        MapProjection projection = map != null && !(map.getProjection() instanceof AzimuthalProjection)
+                ? map.getProjection() : null; // azimuthal projections are modified on viewport changes
+        double tolerance = map != null ? compactionTolerance / ViewTransform.zoomLevelToScale(map.getMaxZoomLevel()) : 0d;
+
+        return CompletableFuture.supplyAsync(() -> {
+            try (GeoJsonReader reader = new GeoJsonReader(readerFactory.call())) {
+                return readFeatures(reader, generation, projection, tolerance);
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, loadExecutor);
+    }
+
+    /**
+     * Reads features and passes them in batches to the JavaFX application thread, after compacting them in
+     * parallel. Waits before passing a batch while maxPendingBatches batches have not yet been added to the
+     * items. Stops reading when compacting or adding a batch has failed. Called in a background thread.
+     */
+    private int readFeatures(GeoJsonReader reader, int generation, MapProjection projection, double tolerance)
+            throws IOException, InterruptedException {
+
+        CompletableFuture<Void> added = CompletableFuture.completedFuture(null); // preserves the order of batches
+        Semaphore pendingBatches = new Semaphore(maxPendingBatches);
+        List<GeoJsonFeature> batch = new ArrayList<>(batchSize);
+        GeoJsonFeature feature;
+        int count = 0;
+
+        while (generation == loadGeneration.get() && !added.isCompletedExceptionally()
+                && (feature = reader.readFeature()) != null) {
+
+            batch.add(feature);
+            count++;
+
+            if (batch.size() == batchSize) {
+                pendingBatches.acquire();
+                added = addFeatures(added, batch, generation, projection, tolerance, pendingBatches);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty() && !added.isCompletedExceptionally()) {
+            pendingBatches.acquire();
+            added = addFeatures(added, batch, generation, projection, tolerance, pendingBatches);
+        }
+
+        added.join();
+        return count;
+    }
+
+    /**
+     * Compacts a batch and adds it to the items after the previous batch. Releases one permit of
+     * pendingBatches when the batch was added, discarded or has failed.
+     */
+    private CompletableFuture<Void> addFeatures(CompletableFuture<Void> added, List<GeoJsonFeature> batch,
+            int generation, MapProjection projection, double tolerance, Semaphore pendingBatches) {
+
+        CompletableFuture<List<GeoJsonFeature>> compacted = projection != null
+                ? CompletableFuture.supplyAsync(
+                        () -> batch.stream().map(f -> compact(f, projection, tolerance)).toList(), compactionExecutor)
+                : CompletableFuture.completedFuture(batch);
+
+        CompletableFuture<Void> result = added.thenCombine(compacted, (r, features) -> {
+            Platform.runLater(() -> {
+                try {
+                    if (generation == loadGeneration.get()) {
+                        getItems().addAll(features);
+                    }
+                } finally {
+                    pendingBatches.release();
+                }
+            });
+            return null;
+        });
+
+        result.exceptionally(ex -> {
+            pendingBatches.release();
+            return null;
+        });
+
+        return result;
+    }
+
+    private void addGeometryNodes(GeoJsonFeature.Geometry geometry, List<Node> nodes) {
+        switch (geometry.type()) {
+            case POINT, MULTI_POINT -> {
+                for (double[] points : geometry.coordinates()) {
+                    for (int i = 0; i < points.length; i += 2) {
+                        MapNode node = new MapNode();
+                        node.setLocation(new Location(points[i], points[i + 1]));
+                        node.getChildren().add(new Circle(pointRadius));
+                        nodes.add(node);
+                    }
+                }
+            }
+            case LINE_STRING, MULTI_LINE_STRING -> {
+                for (double[] line : geometry.coordinates()) {
+                    MapPolyline polyline = new MapPolyline();
+                    polyline.simplificationToleranceProperty().bind(simplificationToleranceProperty);
+                    polyline.setLocationArray(new ObservableLocationArray(line));
+                    nodes.add(polyline);
+                }
+            }
+            case POLYGON -> {
+                if (geometry.coordinates().size() == 1) {
+                    MapPolygon polygon = new MapPolygon();
+                    polygon.simplificationToleranceProperty().bind(simplificationToleranceProperty);
+                    polygon.setLocationArray(new ObservableLocationArray(geometry.coordinates().get(0)));
+                    nodes.add(polygon);
+                } else if (geometry.coordinates().size() > 1) {
+                    addPolygonPath(geometry.coordinates(), nodes);
+                }
+            }
+            default ->
+                geometry.geometries().forEach(part -> addGeometryNodes(part, nodes));
+        }
+    }
+
+    /**
+     * Adds an invisible MapPolygon for each ring of a polygon, which projects, simplifies and updates the
+     * ring's points, and a Path that draws the points of all rings with an even-odd fill rule.
+     */
+    private void addPolygonPath(List<double[]> rings, List<Node> nodes) {
+        javafx.scene.shape.Path path = new javafx.scene.shape.Path();
+        path.getStyleClass().add("map-polygon");
+        path.setFillRule(FillRule.EVEN_ODD);
+        path.setStroke(null);
+        path.setStrokeLineJoin(StrokeLineJoin.ROUND);
+
+        int[] elementCounts = new int[rings.size()]; // number of path elements of each ring
+
+        for (int i = 0; i < rings.size(); i++) {
+            int ring = i;
+            MapPolygon polygon = new MapPolygon();
+            polygon.setVisible(false);
+            polygon.simplificationToleranceProperty().bind(simplificationToleranceProperty);
+            polygon.getPoints().addListener((ListChangeListener.Change<? extends Double> c)
+                    -> updatePathElements(path, elementCounts, ring, polygon.getPoints()));
+            polygon.setLocationArray(new ObservableLocationArray(rings.get(i)));
+            nodes.add(polygon);
+        }
+
+        nodes.add(path);
+    }
+
+    /**
+     * Replaces the path elements of a ring by a closed figure through its points.
+     */
+    private static void updatePathElements(javafx.scene.shape.Path path, int[] elementCounts, int ring,
+            List<Double> points) {
+
+        List<PathElement> elements = new ArrayList<>(points.size() / 2 + 1);
+        int start = 0;
+
+        for (int i = 0; i < ring; i++) {
+            start += elementCounts[i];
+        }
+
+        if (points.size() >= 4) {
+            elements.add(new MoveTo(points.get(0), points.get(1)));
+
+            for (int i = 2; i < points.size() - 1; i += 2) {
+                elements.add(new LineTo(points.get(i), points.get(i + 1)));
+            }
+
+            elements.add(new ClosePath());
+        }
+
+        path.getElements().remove(start, start + elementCounts[ring]);
+        path.getElements().addAll(start, elements);
+        elementCounts[ring] = elements.size();
+    }
+
+    private static GeoJsonFeature compact(GeoJsonFeature feature, MapProjection projection, double tolerance) {
+        return feature.geometry() != null
+                ? new GeoJsonFeature(feature.id(), compact(feature.geometry(), projection, tolerance), feature.properties())
+                : feature;
+    }
+
+    private static GeoJsonFeature.Geometry compact(GeoJsonFeature.Geometry geometry, MapProjection projection, double tolerance) {
+        return switch (geometry.type()) {
+            case POINT, MULTI_POINT ->
+                geometry;
+            case LINE_STRING, MULTI_LINE_STRING, POLYGON ->
+                new GeoJsonFeature.Geometry(geometry.type(),
+                        geometry.coordinates().stream().map(locations -> compact(locations, projection, tolerance)).toList(),
+                        List.of());
+            default ->
+                new GeoJsonFeature.Geometry(geometry.type(), List.of(),
+                        geometry.geometries().stream().map(part -> compact(part, projection, tolerance)).toList());
+        };
+    }
+
+    /**
+     * Removes the locations, given as interleaved latitude and longitude values, that have a Douglas-Peucker
+     * significance less than tolerance in map coordinates.
+     */
+    private static double[] compact(double[] locations, MapProjection projection, double tolerance) {
+        int count = locations.length / 2;
+
+        if (count <= 2) {
+            return locations;
+        }
+
+        double[] points = new double[locations.length];
+        projection.locationToMap(locations, 0, points, 0, count);
+
+        for (double p : points) {
+            if (!Double.isFinite(p)) {
+                return locations;
+            }
+        }
+
+        double[] significance = PolylineSimplifier.getSignificance(points, 0, count);
+        int significantCount = PolylineSimplifier.getSignificantCount(significance, tolerance);
+
+        if (significantCount == count) {
+            return locations;
+        }
+
+        double[] compacted = new double[2 * significantCount];
+
+        for (int i = 0, j = 0; i < count; i++) {
+            if (significance[i] >= tolerance) {
+                compacted[j++] = locations[2 * i];
+                compacted[j++] = locations[2 * i + 1];
+            }
+        }
+
+        return compacted;
+    }
+}
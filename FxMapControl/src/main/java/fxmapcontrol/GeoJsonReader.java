@@ -0,0 +1,689 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming reader for GeoJSON (RFC 7946) text. readFeature returns the features of a FeatureCollection one
+ * by one while the text is read, so that the memory required does not depend on the size of the text. Only
+ * the current feature is held in memory, with its coordinates in compact double arrays. A single Feature or
+ * Geometry object is returned as a single feature.
+ * <p>
+ * Foreign members and bbox values are skipped, except in feature properties.
+ */
+public class GeoJsonReader implements Closeable {
+
+    private static final int bufferSize = 65536;
+
+    private static final double[] powersOfTen = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader reader;
+    private final char[] buffer = new char[bufferSize];
+    private final StringBuilder stringBuilder = new StringBuilder();
+    private double[] lineBuffer = new double[256];
+    private int position;
+    private int limit;
+    private long offset; // number of characters before buffer
+    private boolean started;
+    private boolean inFeatures;
+    private boolean finished;
+
+    public GeoJsonReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Creates a GeoJsonReader for UTF-8 encoded GeoJSON text.
+     */
+    public GeoJsonReader(InputStream stream) {
+        this(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the next feature, or returns null when there are no more features.
+     */
+    public GeoJsonFeature readFeature() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        if (!started) {
+            started = true;
+            expect('{');
+
+            FeatureMembers members = new FeatureMembers();
+
+            if (readMembers(members, true)) {
+                inFeatures = true; // found features array of a FeatureCollection
+            } else {
+                finished = true;
+                return !"FeatureCollection".equals(members.type) ? members.toFeature() : null;
+            }
+        }
+
+        if (inFeatures) {
+            int c = skipWhitespace();
+
+            if (c == ',') {
+                position++;
+                c = skipWhitespace();
+            }
+
+            if (c != ']') {
+                expect('{');
+                FeatureMembers members = new FeatureMembers();
+                readMembers(members, false);
+                return members.toFeature();
+            }
+
+            position++;
+            inFeatures = false;
+            readMembers(new FeatureMembers(), false); // remaining members of the FeatureCollection
+        }
+
+        finished = true;
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the members of a Feature or Geometry object after its opening brace. When isTopLevel is true and
+     * a features member is found, reading stops after the opening bracket of the features array and true is
+     * returned. Otherwise the object is read up to and including its closing brace.
+     */
+    private boolean readMembers(FeatureMembers members, boolean isTopLevel) throws IOException {
+        int c = skipWhitespace();
+
+        if (c == ',') { // continuing after features array
+            position++;
+            c = skipWhitespace();
+        }
+
+        if (c == '}') {
+            position++;
+            return false;
+        }
+
+        while (true) {
+            String key = readString();
+            expect(':');
+
+            switch (key) {
+                case "type" ->
+                    members.type = readString();
+                case "id" ->
+                    members.id = readValue();
+                case "properties" ->
+                    members.properties = readValue();
+                case "geometry" ->
+                    members.geometry = readGeometry();
+                case "coordinates" ->
+                    members.coordinates = readCoordinates(false);
+                case "geometries" ->
+                    members.geometries = readGeometries();
+                case "features" -> {
+                    if (isTopLevel) {
+                        expect('[');
+                        return true;
+                    }
+                    skipValue();
+                }
+                default ->
+                    skipValue();
+            }
+
+            c = skipWhitespace();
+            position++;
+
+            if (c == '}') {
+                return false;
+            }
+
+            if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private GeoJsonFeature.Geometry readGeometry() throws IOException {
+        if (skipWhitespace() == 'n') {
+            readLiteral("null");
+            return null;
+        }
+
+        expect('{');
+        FeatureMembers members = new FeatureMembers();
+        readMembers(members, false);
+        return members.toGeometry();
+    }
+
+    private List<GeoJsonFeature.Geometry> readGeometries() throws IOException {
+        List<GeoJsonFeature.Geometry> geometries = new ArrayList<>();
+
+        expect('[');
+
+        if (skipWhitespace() == ']') {
+            position++;
+            return geometries;
+        }
+
+        do {
+            GeoJsonFeature.Geometry geometry = readGeometry();
+
+            if (geometry != null) {
+                geometries.add(geometry);
+            }
+        } while (readSeparator(']'));
+
+        return geometries;
+    }
+
+    /**
+     * Reads a coordinates array of any depth, where a position has depth 1, an array of positions depth 2,
+     * and so on. isOpened indicates that the opening bracket has already been read.
+     */
+    private Coordinates readCoordinates(boolean isOpened) throws IOException {
+        if (!isOpened) {
+            expect('[');
+        }
+
+        int c = skipWhitespace();
+
+        if (c == ']') {
+            position++;
+            return new Coordinates(0, null); // empty array of unknown depth
+        }
+
+        if (c != '[') {
+            return new Coordinates(1, readPosition(new double[2], 0));
+        }
+
+        position++;
+        c = skipWhitespace();
+
+        if (c != '[' && c != ']') {
+            return new Coordinates(2, readPositions());
+        }
+
+        List<Object> children = new ArrayList<>();
+        Coordinates child = readCoordinates(true);
+        int depth = child.depth();
+
+        children.add(child.value());
+
+        while (readSeparator(']')) {
+            child = readCoordinates(false);
+            children.add(child.value());
+
+            if (depth == 0) {
+                depth = child.depth();
+            } else if (child.depth() != depth && child.depth() != 0) {
+                throw error("Inconsistent coordinates");
+            }
+        }
+
+        return depth > 0 ? new Coordinates(depth + 1, children) : new Coordinates(0, null);
+    }
+
+    /**
+     * Reads an array of positions, after the opening brackets of the array and of its first position.
+     */
+    private double[] readPositions() throws IOException {
+        int size = 0;
+
+        do {
+            if (size > 0) {
+                expect('[');
+            }
+
+            if (size + 2 > lineBuffer.length) {
+                lineBuffer = Arrays.copyOf(lineBuffer, 2 * lineBuffer.length);
+            }
+
+            readPosition(lineBuffer, size);
+            size += 2;
+
+        } while (readSeparator(']'));
+
+        return Arrays.copyOf(lineBuffer, size);
+    }
+
+    /**
+     * Reads a position after its opening bracket, up to and including its closing bracket, and writes its
+     * latitude and longitude to values at index.
+     */
+    private double[] readPosition(double[] values, int index) throws IOException {
+        double longitude = readNumber();
+        expect(',');
+        values[index] = readNumber();
+        values[index + 1] = longitude;
+
+        while (readSeparator(']')) {
+            readNumber(); // altitude
+        }
+
+        return values;
+    }
+
+    /**
+     * Reads a value of any type, with objects as Map and arrays as List.
+     */
+    private Object readValue() throws IOException {
+        int c = skipWhitespace();
+
+        switch (c) {
+            case '{' -> {
+                Map<String, Object> map = new LinkedHashMap<>();
+                position++;
+
+                if (skipWhitespace() == '}') {
+                    position++;
+                    return map;
+                }
+
+                do {
+                    String key = readString();
+                    expect(':');
+                    map.put(key, readValue());
+                } while (readSeparator('}'));
+
+                return map;
+            }
+            case '[' -> {
+                List<Object> list = new ArrayList<>();
+                position++;
+
+                if (skipWhitespace() == ']') {
+                    position++;
+                    return list;
+                }
+
+                do {
+                    list.add(readValue());
+                } while (readSeparator(']'));
+
+                return list;
+            }
+            case '"' -> {
+                return readString();
+            }
+            case 't' -> {
+                readLiteral("true");
+                return Boolean.TRUE;
+            }
+            case 'f' -> {
+                readLiteral("false");
+                return Boolean.FALSE;
+            }
+            case 'n' -> {
+                readLiteral("null");
+                return null;
+            }
+            default -> {
+                return readNumber();
+            }
+        }
+    }
+
+    /**
+     * Skips a value of any type without creating objects for it.
+     */
+    private void skipValue() throws IOException {
+        int c = skipWhitespace();
+
+        if (c == '"') {
+            skipString();
+
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+
+            do {
+                c = read();
+
+                if (c < 0) {
+                    throw error("Unexpected end");
+                } else if (c == '"') {
+                    position--;
+                    skipString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+
+        } else {
+            while ((c = peek()) >= 0 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Reads a ',' and returns true, or reads the closing character and returns false.
+     */
+    private boolean readSeparator(char closing) throws IOException {
+        int c = skipWhitespace();
+        position++;
+
+        if (c == ',') {
+            return true;
+        }
+
+        if (c != closing) {
+            throw error("Expected ',' or '" + closing + "'");
+        }
+
+        return false;
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        stringBuilder.setLength(0);
+
+        while (true) {
+            int start = position;
+
+            while (position < limit && buffer[position] != '"' && buffer[position] != '\\') {
+                position++;
+            }
+
+            stringBuilder.append(buffer, start, position - start);
+
+            int c = read();
+
+            if (c == '"') {
+                return stringBuilder.toString();
+            }
+
+            if (c == '\\') {
+                c = read();
+
+                switch (c) {
+                    case 'b' -> stringBuilder.append('\b');
+                    case 'f' -> stringBuilder.append('\f');
+                    case 'n' -> stringBuilder.append('\n');
+                    case 'r' -> stringBuilder.append('\r');
+                    case 't' -> stringBuilder.append('\t');
+                    case 'u' -> {
+                        int value = 0;
+
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+
+                            if (digit < 0) {
+                                throw error("Invalid unicode escape");
+                            }
+
+                            value = 16 * value + digit;
+                        }
+
+                        stringBuilder.append((char) value);
+                    }
+                    default -> {
+                        if (c < 0) {
+                            throw error("Unterminated string");
+                        }
+                        stringBuilder.append((char) c);
+                    }
+                }
+            } else if (c < 0) {
+                throw error("Unterminated string");
+            } else {
+                stringBuilder.append((char) c); // first character after refilling the buffer
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        expect('"');
+
+        int c;
+
+        while ((c = read()) != '"') {
+            if (c == '\\') {
+                c = read();
+            }
+
+            if (c < 0) {
+                throw error("Unterminated string");
+            }
+        }
+    }
+
+    /**
+     * Reads a number. Numbers with at most 15 significant digits and a decimal exponent of at most 22 are
+     * converted exactly without creating a String, other numbers by Double.parseDouble.
+     */
+    private double readNumber() throws IOException {
+        skipWhitespace();
+        stringBuilder.setLength(0);
+
+        boolean negative = false;
+        long mantissa = 0L;
+        int digits = 0;
+        int exponent = 0;
+        int c = peek();
+
+        if (c == '-') {
+            negative = true;
+            stringBuilder.append('-');
+            position++;
+        }
+
+        while ((c = peek()) >= '0' && c <= '9') {
+            stringBuilder.append((char) c);
+            position++;
+
+            if (mantissa != 0L || c != '0') {
+                mantissa = 10L * mantissa + (c - '0');
+                digits++;
+            }
+        }
+
+        if (c == '.') {
+            stringBuilder.append('.');
+            position++;
+
+            while ((c = peek()) >= '0' && c <= '9') {
+                stringBuilder.append((char) c);
+                position++;
+
+                if (mantissa != 0L || c != '0') {
+                    mantissa = 10L * mantissa + (c - '0');
+                    digits++;
+                }
+                exponent--;
+            }
+        }
+
+        boolean hasExponent = c == 'e' || c == 'E';
+
+        if (hasExponent) {
+            do {
+                stringBuilder.append((char) c);
+                position++;
+                c = peek();
+            } while (c == '+' || c == '-' || c >= '0' && c <= '9');
+        }
+
+        if (stringBuilder.isEmpty() || stringBuilder.length() == 1 && negative) {
+            throw error("Expected number");
+        }
+
+        if (!hasExponent && digits <= 15 && exponent >= -22) {
+            double value = exponent < 0 ? mantissa / powersOfTen[-exponent] : mantissa;
+            return negative ? -value : value;
+        }
+
+        try {
+            return Double.parseDouble(stringBuilder.toString());
+        } catch (NumberFormatException ex) {
+            throw error("Invalid number " + stringBuilder);
+        }
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("Expected " + literal);
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (skipWhitespace() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+
+        position++;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+
+        while ((c = peek()) == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            position++;
+        }
+
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+
+        if (c >= 0) {
+            position++;
+        }
+
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+
+        return limit > 0;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at offset " + (offset + position) + " of GeoJSON text");
+    }
+
+    private record Coordinates(int depth, Object value) {
+    }
+
+    /**
+     * Collects the members of a Feature or Geometry object, which may occur in any order.
+     */
+    private static final class FeatureMembers {
+
+        private String type;
+        private Object id;
+        private Object properties;
+        private GeoJsonFeature.Geometry geometry;
+        private Coordinates coordinates;
+        private List<GeoJsonFeature.Geometry> geometries;
+
+        @SuppressWarnings("unchecked")
+        GeoJsonFeature toFeature() throws IOException {
+            if ("Feature".equals(type)) {
+                return new GeoJsonFeature(
+                        id instanceof String || id instanceof Double ? id : null,
+                        geometry,
+                        properties instanceof Map ? (Map<String, Object>) properties : Map.of());
+            }
+
+            return new GeoJsonFeature(null, toGeometry(), Map.of()); // single Geometry object
+        }
+
+        @SuppressWarnings("unchecked")
+        GeoJsonFeature.Geometry toGeometry() throws IOException {
+            if (type == null) {
+                throw new IOException("Missing GeoJSON type");
+            }
+
+            GeoJsonFeature.GeometryType geometryType = switch (type) {
+                case "Point" -> GeoJsonFeature.GeometryType.POINT;
+                case "MultiPoint" -> GeoJsonFeature.GeometryType.MULTI_POINT;
+                case "LineString" -> GeoJsonFeature.GeometryType.LINE_STRING;
+                case "MultiLineString" -> GeoJsonFeature.GeometryType.MULTI_LINE_STRING;
+                case "Polygon" -> GeoJsonFeature.GeometryType.POLYGON;
+                case "MultiPolygon" -> GeoJsonFeature.GeometryType.MULTI_POLYGON;
+                case "GeometryCollection" -> GeoJsonFeature.GeometryType.GEOMETRY_COLLECTION;
+                default -> throw new IOException("Invalid GeoJSON geometry type " + type);
+            };
+
+            if (geometryType == GeoJsonFeature.GeometryType.GEOMETRY_COLLECTION) {
+                return new GeoJsonFeature.Geometry(geometryType, List.of(), geometries != null ? geometries : List.of());
+            }
+
+            int depth = switch (geometryType) {
+                case POINT -> 1;
+                case MULTI_POINT, LINE_STRING -> 2;
+                case MULTI_LINE_STRING, POLYGON -> 3;
+                default -> 4;
+            };
+
+            if (coordinates == null || coordinates.depth() == 0) {
+                return new GeoJsonFeature.Geometry(geometryType, List.of(), List.of());
+            }
+
+            if (coordinates.depth() != depth) {
+                throw new IOException("Invalid coordinates of GeoJSON " + type);
+            }
+
+            return switch (depth) {
+                case 1, 2 ->
+                    new GeoJsonFeature.Geometry(geometryType, List.of((double[]) coordinates.value()), List.of());
+                case 3 ->
+                    new GeoJsonFeature.Geometry(geometryType, getArrays((List<Object>) coordinates.value()), List.of());
+                default ->
+                    new GeoJsonFeature.Geometry(geometryType, List.of(),
+                            ((List<Object>) coordinates.value()).stream()
+                                    .map(polygon -> new GeoJsonFeature.Geometry(
+                                            GeoJsonFeature.GeometryType.POLYGON, getArrays((List<Object>) polygon), List.of()))
+                                    .toList());
+            };
+        }
+
+        /**
+         * Gets the non-empty arrays of a list of depth 2 coordinates.
+         */
+        @SuppressWarnings("unchecked")
+        private static List<double[]> getArrays(List<Object> list) {
+            return list != null
+                    ? list.stream().filter(value -> value instanceof double[]).map(value -> (double[]) value).toList()
+                    : List.of();
+        }
+    }
+}
@@ -20,33 +20,37 @@ public class GnomonicProjection extends AzimuthalProjection {
     }
 
     @Override
-    public Point2D locationToMap(Location location) {
-        if (location.equals(getCenter())) {
-            return new Point2D(0d, 0d);
-        }
-
-        double[] azimuthDistance = getAzimuthDistance(getCenter(), location);
-        double azimuth = azimuthDistance[0];
-        double distance = azimuthDistance[1];
-        double mapDistance = distance < Math.PI / 2d ? WGS84_EQUATORIAL_RADIUS * Math.tan(distance) : Double.POSITIVE_INFINITY;
+    public AzimuthalProjection withCenter(Location center) {
+        GnomonicProjection projection = new GnomonicProjection(getCrsId());
+        projection.setCenter(center);
+        return projection;
+    }
 
-        return new Point2D(mapDistance * Math.sin(azimuth), mapDistance * Math.cos(azimuth));
+    @Override
+    public Point2D locationToMap(Location location) {
+        return locationToMap(location, GnomonicProjection::mapDistance);
     }
 
     @Override
     public Location mapToLocation(Point2D point) {
-        double x = point.getX();
-        double y = point.getY();
+        return mapToLocation(point, GnomonicProjection::distance);
+    }
 
-        if (x == 0d && y == 0d) {
-            return new Location(getCenter().latitude(), getCenter().longitude());
-        }
+    @Override
+    public void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        locationToMap(src, srcOffset, dst, dstOffset, count, GnomonicProjection::mapDistance);
+    }
 
-        double azimuth = Math.atan2(x, y);
-        double mapDistance = Math.sqrt(x * x + y * y);
-        double distance = Math.atan(mapDistance / WGS84_EQUATORIAL_RADIUS);
+    @Override
+    public void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        mapToLocation(src, srcOffset, dst, dstOffset, count, GnomonicProjection::distance);
+    }
 
-        return getLocation(getCenter(), azimuth, distance);
+    private static double mapDistance(double distance) {
+        return distance < Math.PI / 2d ? WGS84_EQUATORIAL_RADIUS * Math.tan(distance) : Double.POSITIVE_INFINITY;
     }
 
+    private static double distance(double mapDistance) {
+        return Math.atan(mapDistance / WGS84_EQUATORIAL_RADIUS);
+    }
 }
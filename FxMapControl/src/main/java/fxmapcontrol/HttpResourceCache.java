@@ -0,0 +1,98 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import fxmapcontrol.ITileCache.CacheItem;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads resources like capabilities documents or map images of map services through an ITileCache. Resources
+ * are cached with the expiration given by the service, so that an unexpired cached copy is used without
+ * accessing the network, and an expired copy is still used when the service is not reachable.
+ */
+final class HttpResourceCache {
+
+    private static final int httpTimeout = 10000; // milliseconds
+
+    private HttpResourceCache() {
+    }
+
+    /**
+     * Opens a capabilities document, cached in the ITileCache of TileImageLoader if one is set.
+     */
+    static InputStream openCapabilitiesStream(String url) throws IOException {
+        ITileCache cache = TileImageLoader.getCache();
+
+        if (cache == null || !url.startsWith("http")) {
+            return URI.create(url).toURL().openStream();
+        }
+
+        return new ByteArrayInputStream(getBuffer(cache, "Capabilities/" + getHash(url) + ".xml", url, null));
+    }
+
+    /**
+     * Gets the content of an HTTP resource from the cache, or downloads and caches it when there is no
+     * unexpired cached copy. Optionally checks that the Content-Type of the response starts with the
+     * specified prefix, e.g. because services may report errors as XML documents instead of images.
+     */
+    static byte[] getBuffer(ITileCache cache, String cacheKey, String url, String contentTypePrefix) throws IOException {
+        CacheItem cacheItem = cache.get(cacheKey);
+
+        if (cacheItem != null && cacheItem.expiration() >= new Date().getTime()) {
+            return cacheItem.buffer();
+        }
+
+        try {
+            HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+            connection.setConnectTimeout(httpTimeout);
+            connection.setReadTimeout(httpTimeout);
+            connection.connect();
+
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("%s: %d %s",
+                        url, connection.getResponseCode(), connection.getResponseMessage()));
+            }
+
+            String contentType = connection.getContentType();
+
+            if (contentTypePrefix != null && (contentType == null || !contentType.startsWith(contentTypePrefix))) {
+                throw new IOException(String.format("%s: unexpected Content-Type %s", url, contentType));
+            }
+
+            byte[] buffer;
+
+            try (InputStream stream = connection.getInputStream()) {
+                buffer = stream.readAllBytes();
+            }
+
+            cache.set(cacheKey, buffer, TileImageLoader.getCacheExpiration(connection));
+
+            return buffer;
+
+        } catch (IOException ex) {
+            if (cacheItem == null) {
+                throw ex;
+            }
+
+            Logger.getLogger(HttpResourceCache.class.getName()).log(
+                    Level.WARNING, "{0}: {1}, using expired cached copy", new Object[]{url, ex});
+
+            return cacheItem.buffer();
+        }
+    }
+
+    static String getHash(String url) {
+        return UUID.nameUUIDFromBytes(url.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
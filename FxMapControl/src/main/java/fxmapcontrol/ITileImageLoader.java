@@ -12,4 +12,12 @@ import java.util.Collection;
 public interface ITileImageLoader {
 
     void loadTiles(Collection<Tile> tiles, TileSource tileSource, String tileSourceName);
+
+    /**
+     * Loads the high resolution variant of the tile images when hiDpi is true. The default implementation
+     * ignores hiDpi.
+     */
+    default void loadTiles(Collection<Tile> tiles, TileSource tileSource, String tileSourceName, boolean hiDpi) {
+        loadTiles(tiles, tileSource, tileSourceName);
+    }
 }
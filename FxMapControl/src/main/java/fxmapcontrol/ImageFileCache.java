@@ -13,6 +13,7 @@ import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,6 +69,7 @@ public record ImageFileCache(Path rootDirectory) implements ITileCache {
                 if (buffer.length >= 16 && ByteBuffer.wrap(buffer, buffer.length - 16, 8).equals(expirationMarker)) {
                     expiration = ByteBuffer.wrap(buffer, buffer.length - 8, 8).order(ByteOrder.LITTLE_ENDIAN)
                             .getLong() / datetimeFactor - datetimeOffset;
+                    buffer = Arrays.copyOf(buffer, buffer.length - 16); // strip expiration marker and value
                 }
 
                 return new CacheItem(buffer, expiration);
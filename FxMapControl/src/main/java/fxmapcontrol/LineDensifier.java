@@ -0,0 +1,205 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.util.Arrays;
+
+/**
+ * Adaptive subdivision of polyline segments into great circle or rhumb line arcs. Each segment is bisected
+ * recursively until the projected midpoint of an arc deviates by no more than a tolerance in map coordinates
+ * from the straight line between the projected end points, so that the number of added vertices depends on
+ * the curvature of the arcs in the current projection, not on their lengths. Arcs longer than
+ * maxArcDegrees are always bisected, because the midpoint of a symmetric arc may lie on the straight line.
+ * <p>
+ * Great circle arcs are interpolated on a sphere, rhumb lines on a sphere with linear interpolation of
+ * longitude and isometric latitude. Great circle segments with a longitude difference of more than 180
+ * degrees are ambiguous and remain straight lines.
+ */
+final class LineDensifier {
+
+    private static final double maxArcDegrees = 10d;
+    private static final double maxRhumbLatitude = 89.9;
+    private static final int maxDepth = 16;
+
+    private final MapPolyline.LineType lineType;
+    private final MapProjection projection;
+    private final double tolerance;
+    private final double[] point = new double[2];
+    private double[] buffer;
+    private int size;
+
+    // segment parameters
+    private double longitude0;
+    private double longitudeDelta;
+    private double isometricLatitude0;
+    private double isometricLatitudeDelta;
+    private double vx0, vy0, vz0, vx1, vy1, vz1; // unit vectors of great circle end points
+    private double arcAngle;
+    private double sinArcAngle;
+    private int minDepth;
+
+    private LineDensifier(MapPolyline.LineType lineType, MapProjection projection, double tolerance, int capacity) {
+        this.lineType = lineType;
+        this.projection = projection;
+        this.tolerance = tolerance;
+        buffer = new double[capacity];
+    }
+
+    /**
+     * Densifies the polyline given by count locations as interleaved latitude and longitude values in
+     * locations, and by their projected map coordinates as interleaved x and y values in mapCoordinates.
+     * Returns a new array with the interleaved x and y values of the densified polyline, which contains all
+     * points of mapCoordinates. Subdivision stops when the projected midpoint of an arc deviates by no more
+     * than tolerance from the straight line.
+     */
+    static double[] densify(MapPolyline.LineType lineType, MapProjection projection,
+            double[] locations, double[] mapCoordinates, int count, double tolerance) {
+
+        LineDensifier densifier = new LineDensifier(lineType, projection, tolerance, 2 * count + 16);
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && densifier.setSegment(
+                    locations[2 * i - 2], locations[2 * i - 1], locations[2 * i], locations[2 * i + 1])) {
+
+                densifier.subdivide(0d, mapCoordinates[2 * i - 2], mapCoordinates[2 * i - 1],
+                        1d, mapCoordinates[2 * i], mapCoordinates[2 * i + 1], 0);
+            }
+
+            densifier.add(mapCoordinates[2 * i], mapCoordinates[2 * i + 1]);
+        }
+
+        return Arrays.copyOf(densifier.buffer, densifier.size);
+    }
+
+    /**
+     * Sets the parameters of the arc between two locations. Returns false when the segment is a straight
+     * line.
+     */
+    private boolean setSegment(double lat0, double lon0, double lat1, double lon1) {
+        double arcDegrees;
+
+        longitude0 = lon0;
+        longitudeDelta = lon1 - lon0;
+
+        if (lineType == MapPolyline.LineType.RHUMB) {
+            lat0 = Math.min(Math.max(lat0, -maxRhumbLatitude), maxRhumbLatitude);
+            lat1 = Math.min(Math.max(lat1, -maxRhumbLatitude), maxRhumbLatitude);
+            isometricLatitude0 = isometricLatitude(lat0);
+            isometricLatitudeDelta = isometricLatitude(lat1) - isometricLatitude0;
+            arcDegrees = Math.max(Math.abs(lat1 - lat0), Math.abs(longitudeDelta));
+
+        } else {
+            if (Math.abs(longitudeDelta) > 180d) {
+                return false;
+            }
+
+            double phi0 = lat0 * Math.PI / 180d;
+            double lambda0 = lon0 * Math.PI / 180d;
+            double phi1 = lat1 * Math.PI / 180d;
+            double lambda1 = lon1 * Math.PI / 180d;
+
+            vx0 = Math.cos(phi0) * Math.cos(lambda0);
+            vy0 = Math.cos(phi0) * Math.sin(lambda0);
+            vz0 = Math.sin(phi0);
+            vx1 = Math.cos(phi1) * Math.cos(lambda1);
+            vy1 = Math.cos(phi1) * Math.sin(lambda1);
+            vz1 = Math.sin(phi1);
+
+            double cx = vy0 * vz1 - vz0 * vy1;
+            double cy = vz0 * vx1 - vx0 * vz1;
+            double cz = vx0 * vy1 - vy0 * vx1;
+
+            sinArcAngle = Math.sqrt(cx * cx + cy * cy + cz * cz);
+            arcAngle = Math.atan2(sinArcAngle, vx0 * vx1 + vy0 * vy1 + vz0 * vz1);
+            arcDegrees = arcAngle * 180d / Math.PI;
+
+            if (sinArcAngle < 1e-12) { // identical or antipodal locations
+                return false;
+            }
+        }
+
+        minDepth = 0;
+
+        while (arcDegrees > maxArcDegrees && minDepth < maxDepth) {
+            arcDegrees /= 2d;
+            minDepth++;
+        }
+
+        return true;
+    }
+
+    private void subdivide(double t0, double x0, double y0, double t1, double x1, double y1, int depth) {
+        double t = (t0 + t1) / 2d;
+
+        interpolate(t);
+        projection.locationToMap(point, 0, point, 0, 1);
+
+        double x = point[0];
+        double y = point[1];
+
+        if (Double.isFinite(x) && Double.isFinite(y)
+                && (depth < minDepth || depth < maxDepth && getDistance(x, y, x0, y0, x1, y1) > tolerance)) {
+
+            subdivide(t0, x0, y0, t, x, y, depth + 1);
+            add(x, y);
+            subdivide(t, x, y, t1, x1, y1, depth + 1);
+        }
+    }
+
+    /**
+     * Writes the location at the fraction t of the current arc as latitude and longitude to point.
+     */
+    private void interpolate(double t) {
+        double linearLongitude = longitude0 + t * longitudeDelta;
+
+        if (lineType == MapPolyline.LineType.RHUMB) {
+            point[0] = Math.atan(Math.sinh(isometricLatitude0 + t * isometricLatitudeDelta)) * 180d / Math.PI;
+            point[1] = linearLongitude;
+
+        } else {
+            double a = Math.sin((1d - t) * arcAngle) / sinArcAngle;
+            double b = Math.sin(t * arcAngle) / sinArcAngle;
+            double x = a * vx0 + b * vx1;
+            double y = a * vy0 + b * vy1;
+            double z = a * vz0 + b * vz1;
+            double longitude = Math.atan2(y, x) * 180d / Math.PI;
+
+            point[0] = Math.atan2(z, Math.sqrt(x * x + y * y)) * 180d / Math.PI;
+            point[1] = linearLongitude + Math.IEEEremainder(longitude - linearLongitude, 360d);
+        }
+    }
+
+    private void add(double x, double y) {
+        if (size + 2 > buffer.length) {
+            buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        }
+
+        buffer[size++] = x;
+        buffer[size++] = y;
+    }
+
+    private static double isometricLatitude(double latitude) {
+        return Math.log(Math.tan((latitude + 90d) * Math.PI / 360d));
+    }
+
+    /**
+     * Gets the distance of point x, y from the line segment from x0, y0 to x1, y1.
+     */
+    private static double getDistance(double x, double y, double x0, double y0, double x1, double y1) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double px = x - x0;
+        double py = y - y0;
+        double length2 = dx * dx + dy * dy;
+
+        if (length2 > 0d) {
+            double t = Math.min(Math.max((px * dx + py * dy) / length2, 0d), 1d);
+            px -= t * dx;
+            py -= t * dy;
+        }
+
+        return Math.sqrt(px * px + py * py);
+    }
+}
@@ -75,6 +75,8 @@ public class MapBase extends Region implements IMapNode {
     private final DoubleProperty targetHeadingProperty = new SimpleDoubleProperty(this, "targetHeading");
     private final ReadOnlyDoubleWrapper viewScaleProperty = new ReadOnlyDoubleWrapper(this, "viewScale");
     private final ViewTransform viewTransform = new ViewTransform();
+    private ProjectionViewTransform projectionViewTransform
+            = new ProjectionViewTransform(getProjection(), viewTransform.getMapToViewTransform());
     private final CenterTransition centerTransition = new CenterTransition();
     private final ZoomLevelTransition zoomLevelTransition = new ZoomLevelTransition();
     private final HeadingTransition headingTransition = new HeadingTransition();
@@ -358,12 +360,20 @@ public class MapBase extends Region implements IMapNode {
         return viewTransform;
     }
 
+    /**
+     * Gets the combined projection and view transform of the current viewport, i.e. the fast path for
+     * transforming geographic coordinates to view coordinates.
+     */
+    public final ProjectionViewTransform getProjectionViewTransform() {
+        return projectionViewTransform;
+    }
+
     public final Point2D getScale(Location location) {
         return getProjection().getRelativeScale(location).multiply(viewTransform.getScale());
     }
 
     public final Point2D locationToView(Location location) {
-        return viewTransform.mapToView(getProjection().locationToMap(location));
+        return projectionViewTransform.locationToView(location);
     }
 
     public final Location viewToLocation(Point2D point) {
@@ -523,6 +533,8 @@ public class MapBase extends Region implements IMapNode {
             }
         }
 
+        projectionViewTransform = new ProjectionViewTransform(projection, viewTransform.getMapToViewTransform());
+
         viewScaleProperty.set(viewScale);
 
         fireEvent(new ViewportChangedEvent(this, projectionChanged, getCenter().longitude() - centerLongitude));
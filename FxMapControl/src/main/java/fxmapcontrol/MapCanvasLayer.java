@@ -0,0 +1,397 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.geometry.Point2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.shape.StrokeLineJoin;
+
+/**
+ * Draws a large number of MapCanvasShapes on a single Canvas, instead of creating a MapPolyline or MapPolygon
+ * node for each shape.
+ * <p>
+ * The shapes are prepared in a background thread, i.e. their locations are projected to map coordinates and
+ * their bounds and Douglas-Peucker significance are calculated. Shapes appended to the shapes list are
+ * prepared separately, other changes of the list or a change of the projection prepare all shapes again.
+ * On a viewport change, the Canvas is redrawn on the JavaFX application thread from the prepared shapes,
+ * where shapes outside the viewport are skipped and only vertices that are significant at the current view
+ * scale are transformed to view coordinates.
+ * <p>
+ * The Canvas is not redrawn incrementally. Every viewport change, including panning, which only changes the
+ * translation of the view transform, clears the Canvas and draws all visible shapes again. The cost of a
+ * viewport change is therefore proportional to the number of significant vertices in the viewport.
+ * <p>
+ * The center of an azimuthal projection is changed by the map on viewport changes. Shapes are therefore
+ * prepared with an instance created by AzimuthalProjection.withCenter, with the center at the time the
+ * preparation was requested. When only the center has changed, the previously prepared shapes are drawn until
+ * preparation for the new center has completed. Shapes are prepared synchronously with the map's projection
+ * instance when an azimuthal projection does not implement withCenter.
+ */
+public class MapCanvasLayer extends Canvas implements IMapNode {
+
+    private static final ExecutorService prepareShapesExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final PreparedShape[] noShapes = new PreparedShape[0];
+
+    private final ObservableList<MapCanvasShape> shapes = FXCollections.observableArrayList();
+    private final DoubleProperty simplificationToleranceProperty = new SimpleDoubleProperty(this, "simplificationTolerance", 0.5);
+    private final MapNodeHelper mapNodeHelper = new MapNodeHelper(e -> onViewportChanged());
+    private PreparedShape[] preparedShapes = noShapes; // same order as shapes, null while not yet prepared
+    private MapProjection preparedProjection; // map projection of preparedShapes
+    private MapProjection preparedShapeProjection; // projection instance used to prepare preparedShapes
+    private Location preparedCenter;
+    private MapProjection requestedProjection; // map projection of the last preparation of all shapes
+    private Location requestedCenter;
+    private int generation; // incremented for each preparation of all shapes
+    private boolean preparationPending;
+    private double[] xValues = new double[0];
+    private double[] yValues = new double[0];
+    private double[] viewPoints = new double[0];
+
+    public MapCanvasLayer() {
+        getStyleClass().add("map-canvas-layer");
+        setMouseTransparent(true);
+        shapes.addListener((ListChangeListener.Change<? extends MapCanvasShape> c) -> shapesChanged(c));
+        simplificationToleranceProperty.addListener((observable, oldValue, newValue) -> draw());
+    }
+
+    public MapCanvasLayer(List<MapCanvasShape> shapes) {
+        this();
+        this.shapes.addAll(shapes);
+    }
+
+    @Override
+    public final MapBase getMap() {
+        return mapNodeHelper.getMap();
+    }
+
+    @Override
+    public void setMap(MapBase map) {
+        mapNodeHelper.setMap(map);
+        prepareAllShapes();
+    }
+
+    public final ObservableList<MapCanvasShape> getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Vertices that do not deviate by at least simplificationTolerance pixels from a Douglas-Peucker
+     * simplification of a shape at the current view scale are not drawn. The default value 0.5 gives a
+     * visually lossless simplification, zero disables simplification.
+     */
+    public final DoubleProperty simplificationToleranceProperty() {
+        return simplificationToleranceProperty;
+    }
+
+    public final double getSimplificationTolerance() {
+        return simplificationToleranceProperty.get();
+    }
+
+    public final void setSimplificationTolerance(double simplificationTolerance) {
+        simplificationToleranceProperty.set(simplificationTolerance);
+    }
+
+    private void onViewportChanged() {
+        MapBase map = getMap();
+
+        if (map != null && map.getProjection() != requestedProjection) {
+            prepareAllShapes();
+
+        } else if (map != null && !preparationPending && !Objects.equals(getProjectionCenter(map), requestedCenter)) {
+            prepareAllShapes(); // otherwise checked again when the pending preparation has completed
+        }
+
+        draw();
+    }
+
+    private void shapesChanged(ListChangeListener.Change<? extends MapCanvasShape> change) {
+        if (change.next() && change.wasAdded() && !change.wasRemoved() && !change.wasPermutated()
+                && change.getTo() == shapes.size() && !change.next()) {
+
+            change.reset();
+            change.next();
+            prepareAddedShapes(change.getFrom(), change.getTo());
+        } else {
+            prepareAllShapes();
+        }
+    }
+
+    private void prepareAllShapes() {
+        MapBase map = getMap();
+
+        generation++;
+
+        if (map == null) {
+            preparedShapes = noShapes;
+            preparedProjection = null;
+            preparedShapeProjection = null;
+            preparedCenter = null;
+            requestedProjection = null;
+            requestedCenter = null;
+            preparationPending = false;
+            draw();
+            return;
+        }
+
+        int currentGeneration = generation;
+        MapProjection projection = map.getProjection();
+        Location center = getProjectionCenter(map);
+        MapProjection shapeProjection = AzimuthalProjection.getBackgroundProjection(projection);
+        List<MapCanvasShape> shapeList = List.copyOf(shapes);
+
+        requestedProjection = projection;
+        requestedCenter = center;
+
+        if (shapeProjection == null) {
+            preparedShapes = prepareShapes(shapeList, projection); // center not changed while blocked
+            preparedProjection = projection;
+            preparedShapeProjection = null; // appended shapes prepare all shapes again
+            preparedCenter = center;
+            preparationPending = false;
+            draw();
+            return;
+        }
+
+        preparationPending = true;
+
+        CompletableFuture.supplyAsync(() -> prepareShapes(shapeList, shapeProjection), prepareShapesExecutor)
+                .whenComplete((result, exception) -> Platform.runLater(() -> {
+                    boolean isCurrent = isCurrentPreparation(currentGeneration, projection, center);
+
+                    if (exception != null) {
+                        Logger.getLogger(MapCanvasLayer.class.getName()).log(Level.WARNING, exception.toString());
+
+                        if (isCurrent) {
+                            preparationPending = false;
+                        }
+
+                    } else if (isCurrent) {
+                        preparedShapes = result;
+                        preparedProjection = projection;
+                        preparedShapeProjection = shapeProjection;
+                        preparedCenter = center;
+                        preparationPending = false;
+                        onViewportChanged();
+                    }
+                }));
+    }
+
+    private void prepareAddedShapes(int from, int to) {
+        if (getMap() == null || preparationPending || preparedShapeProjection == null || preparedShapes.length != from) {
+            prepareAllShapes(); // prepares the added shapes as well
+            return;
+        }
+
+        int currentGeneration = generation;
+        MapProjection projection = preparedProjection;
+        MapProjection shapeProjection = preparedShapeProjection; // not modified by the map
+        Location center = preparedCenter;
+        List<MapCanvasShape> shapeList = List.copyOf(shapes.subList(from, to));
+
+        preparedShapes = Arrays.copyOf(preparedShapes, to);
+
+        CompletableFuture.supplyAsync(() -> prepareShapes(shapeList, shapeProjection), prepareShapesExecutor)
+                .whenComplete((result, exception) -> Platform.runLater(() -> {
+                    if (exception != null) {
+                        Logger.getLogger(MapCanvasLayer.class.getName()).log(Level.WARNING, exception.toString());
+
+                    } else if (isCurrentPreparation(currentGeneration, projection, center)) {
+                        System.arraycopy(result, 0, preparedShapes, from, result.length);
+                        draw();
+                    }
+                }));
+    }
+
+    private void draw() {
+        MapBase map = getMap();
+        GraphicsContext gc = getGraphicsContext2D();
+
+        if (map != null) {
+            setWidth(map.getWidth());
+            setHeight(map.getHeight());
+        }
+
+        gc.clearRect(0d, 0d, getWidth(), getHeight());
+
+        if (map == null || preparedProjection != map.getProjection()) {
+            return;
+        }
+
+        ProjectionViewTransform transform = map.getProjectionViewTransform();
+        double scale = map.getViewScale();
+        double tolerance = getSimplificationTolerance();
+        double minSignificance = tolerance > 0d ? tolerance / scale : 0d;
+        double[] viewBounds = getViewBounds(map);
+
+        gc.setLineJoin(StrokeLineJoin.ROUND);
+        gc.setLineCap(StrokeLineCap.ROUND);
+
+        for (PreparedShape shape : preparedShapes) {
+            if (shape == null || shape.points() == null) {
+                continue;
+            }
+
+            // view bounds in map coordinates, enlarged by the stroke width
+            //
+            double margin = shape.shape().strokeWidth() / scale;
+
+            if (shape.maxX() < viewBounds[0] - margin || shape.minX() > viewBounds[2] + margin
+                    || shape.maxY() < viewBounds[1] - margin || shape.minY() > viewBounds[3] + margin) {
+                continue;
+            }
+
+            int count = getViewPoints(shape, minSignificance, transform);
+            MapCanvasShape canvasShape = shape.shape();
+
+            if (canvasShape.closed()) {
+                if (canvasShape.fill() != null) {
+                    gc.setFill(canvasShape.fill());
+                    gc.fillPolygon(xValues, yValues, count);
+                }
+                if (canvasShape.stroke() != null && canvasShape.strokeWidth() > 0d) {
+                    gc.setStroke(canvasShape.stroke());
+                    gc.setLineWidth(canvasShape.strokeWidth());
+                    gc.strokePolygon(xValues, yValues, count);
+                }
+            } else if (canvasShape.stroke() != null && canvasShape.strokeWidth() > 0d) {
+                gc.setStroke(canvasShape.stroke());
+                gc.setLineWidth(canvasShape.strokeWidth());
+                gc.strokePolyline(xValues, yValues, count);
+            }
+        }
+    }
+
+    /**
+     * Writes the view coordinates of the significant vertices of a prepared shape to xValues and yValues,
+     * and returns their number.
+     */
+    private int getViewPoints(PreparedShape shape, double minSignificance, ProjectionViewTransform transform) {
+        double[] points = shape.points();
+        double[] significance = shape.significance();
+        int size = points.length / 2;
+        int count = 0;
+
+        if (viewPoints.length < points.length) {
+            viewPoints = new double[points.length];
+            xValues = new double[size];
+            yValues = new double[size];
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (significance[i] >= minSignificance) {
+                viewPoints[2 * count] = points[2 * i];
+                viewPoints[2 * count + 1] = points[2 * i + 1];
+                count++;
+            }
+        }
+
+        transform.mapToView(viewPoints, 0, count);
+
+        for (int i = 0; i < count; i++) {
+            xValues[i] = viewPoints[2 * i];
+            yValues[i] = viewPoints[2 * i + 1];
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the bounds of the viewport in map coordinates as minX, minY, maxX and maxY.
+     */
+    private static double[] getViewBounds(MapBase map) {
+        ViewTransform viewTransform = map.getViewTransform();
+        Point2D p1 = viewTransform.viewToMap(new Point2D(0d, 0d));
+        Point2D p2 = viewTransform.viewToMap(new Point2D(map.getWidth(), 0d));
+        Point2D p3 = viewTransform.viewToMap(new Point2D(0d, map.getHeight()));
+        Point2D p4 = viewTransform.viewToMap(new Point2D(map.getWidth(), map.getHeight()));
+
+        return new double[]{
+            Math.min(Math.min(p1.getX(), p2.getX()), Math.min(p3.getX(), p4.getX())),
+            Math.min(Math.min(p1.getY(), p2.getY()), Math.min(p3.getY(), p4.getY())),
+            Math.max(Math.max(p1.getX(), p2.getX()), Math.max(p3.getX(), p4.getX())),
+            Math.max(Math.max(p1.getY(), p2.getY()), Math.max(p3.getY(), p4.getY()))
+        };
+    }
+
+    /**
+     * Checks if a completed preparation was requested for the current shapes, map projection and projection
+     * center.
+     */
+    private boolean isCurrentPreparation(int preparationGeneration, MapProjection projection, Location center) {
+        return preparationGeneration == generation
+                && projection == requestedProjection
+                && Objects.equals(center, requestedCenter);
+    }
+
+    private static Location getProjectionCenter(MapBase map) {
+        return map.getProjection() instanceof AzimuthalProjection ? map.getProjection().getCenter() : null;
+    }
+
+    /**
+     * Prepares shapes in parallel.
+     */
+    private static PreparedShape[] prepareShapes(List<MapCanvasShape> shapes, MapProjection projection) {
+        return shapes.parallelStream()
+                .map(shape -> prepareShape(shape, projection))
+                .toArray(PreparedShape[]::new);
+    }
+
+    private static PreparedShape prepareShape(MapCanvasShape shape, MapProjection projection) {
+        int size = shape.size();
+        double[] points = new double[2 * size];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+
+        projection.locationToMap(shape.locations(), 0, points, 0, size);
+
+        for (int i = 0; i < points.length; i += 2) {
+            double x = points[i];
+            double y = points[i + 1];
+
+            if (!Double.isFinite(x) || !Double.isFinite(y)) {
+                return new PreparedShape(shape, null, null, 0d, 0d, 0d, 0d);
+            }
+
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        return new PreparedShape(shape, points, PolylineSimplifier.getSignificance(points, 0, size), minX, minY, maxX, maxY);
+    }
+
+    /**
+     * A MapCanvasShape with its points in map coordinates, the Douglas-Peucker significance of the points and
+     * their bounds. points is null when the shape can not be drawn.
+     */
+    private record PreparedShape(
+            MapCanvasShape shape, double[] points, double[] significance,
+            double minX, double minY, double maxX, double maxY) {
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import javafx.scene.paint.Paint;
+
+/**
+ * A styled polyline or polygon drawn by a MapCanvasLayer. The locations are given as interleaved latitude and
+ * longitude values and must not be modified after the shape was added to a MapCanvasLayer. A polygon is
+ * defined by closed set to true. The stroke and fill Paints may be null.
+ */
+public record MapCanvasShape(
+  double[] locations,
+  boolean closed,
+  Paint stroke,
+  Paint fill,
+  double strokeWidth
+) {
+    public MapCanvasShape {
+        if (locations.length % 2 != 0) {
+            throw new IllegalArgumentException("The number of latitude and longitude values must be even.");
+        }
+    }
+
+    public int size() {
+        return locations.length / 2;
+    }
+}
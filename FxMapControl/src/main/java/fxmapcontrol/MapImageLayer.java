@@ -5,6 +5,8 @@
 package fxmapcontrol;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javafx.animation.FadeTransition;
@@ -13,8 +15,10 @@ import javafx.animation.Timeline;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.css.CssMetaData;
 import javafx.css.SimpleStyleableBooleanProperty;
 import javafx.css.SimpleStyleableDoubleProperty;
@@ -25,6 +29,8 @@ import javafx.css.StyleableDoubleProperty;
 import javafx.css.StyleableObjectProperty;
 import javafx.css.StyleablePropertyFactory;
 import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.image.Image;
@@ -34,9 +40,30 @@ import javafx.util.Duration;
  * Displays a single map image, e.g. from a Web Map Service (WMS).
  * <p>
  * The image must be provided by the abstract loadImage() method.
+ * <p>
+ * When the adaptiveOverscan property is set and the map projection is normal cylindrical, the relative image
+ * size is increased according to the recent panning speed, and no new image is requested after a viewport
+ * change as long as the current image covers at least minImageCoverage of the viewport, and the ratio of
+ * its resolution to the view resolution is not less than minImageResolution (or greater than its inverse).
+ * <p>
+ * When the snapToGrid property is set and the map projection is normal cylindrical, the image scale is rounded
+ * to quarter zoom levels and the image bounds are aligned to a grid of 256 image pixels, so that returning to a
+ * previous view results in identical image requests, which can be served from a cache.
  */
 public abstract class MapImageLayer extends Parent implements IMapNode {
 
+    private static final double overscanLookahead = 2d; // seconds of panning covered by overscan
+    private static final double maxOverscanImageSize = 3d; // relative to view size
+    private static final double panSpeedTimeConstant = 0.5; // seconds
+    private static final double gridZoomLevelStep = 0.25;
+    private static final double gridCellSize = 256d; // image pixels
+
+    private static final ExecutorService loadImageExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private static final StyleablePropertyFactory<MapImageLayer> propertyFactory
             = new StyleablePropertyFactory<>(Parent.getClassCssMetaData());
 
@@ -63,20 +90,30 @@ public abstract class MapImageLayer extends Parent implements IMapNode {
     private final DoubleProperty minLongitudeProperty = new SimpleDoubleProperty(this, "minLongitude", Double.NaN);
     private final DoubleProperty maxLongitudeProperty = new SimpleDoubleProperty(this, "maxLongitude", Double.NaN);
     private final DoubleProperty maxBoundingBoxWidthProperty = new SimpleDoubleProperty(this, "maxBoundingBoxWidth", Double.NaN);
+    private final BooleanProperty adaptiveOverscanProperty = new SimpleBooleanProperty(this, "adaptiveOverscan");
+    private final DoubleProperty minImageCoverageProperty = new SimpleDoubleProperty(this, "minImageCoverage", 1d);
+    private final DoubleProperty minImageResolutionProperty = new SimpleDoubleProperty(this, "minImageResolution", 0.8);
+    private final BooleanProperty snapToGridProperty = new SimpleBooleanProperty(this, "snapToGrid");
 
     private final Timeline updateTimeline = new Timeline();
     private final MapNodeHelper mapNodeHelper = new MapNodeHelper(e -> onViewportChanged(e.getProjectionChanged(), e.getLongitudeOffset()));
     private MapBoundingBox boundingBox;
-    private boolean updateInProgress;
+    private Image pendingImage;
+    private Task<Image> pendingTask;
+    private MapBoundingBox pendingBoundingBox;
+    private double imageViewScale; // view scale at which the current image was requested
+    private Point2D panMapCenter;
+    private long panTime;
+    private double panSpeed; // view pixels per second
 
     public MapImageLayer() {
         getStyleClass().add("map-image-layer");
         setMouseTransparent(true);
 
-        updateTimeline.getKeyFrames().add(new KeyFrame(getUpdateDelay(), e -> updateImage()));
+        updateTimeline.getKeyFrames().add(new KeyFrame(getUpdateDelay(), e -> updateViewportImage()));
 
         updateDelayProperty.addListener((observable, oldValue, newValue)
-                -> updateTimeline.getKeyFrames().set(0, new KeyFrame(getUpdateDelay(), e -> updateImage())));
+                -> updateTimeline.getKeyFrames().set(0, new KeyFrame(getUpdateDelay(), e -> updateViewportImage())));
     }
 
     public static List<CssMetaData<? extends Styleable, ?>> getClassCssMetaData() {
@@ -196,22 +233,89 @@ public abstract class MapImageLayer extends Parent implements IMapNode {
         maxBoundingBoxWidthProperty.set(maxBoundingBoxWidth);
     }
 
+    public final BooleanProperty adaptiveOverscanProperty() {
+        return adaptiveOverscanProperty;
+    }
+
+    public final boolean isAdaptiveOverscan() {
+        return adaptiveOverscanProperty.get();
+    }
+
+    public final void setAdaptiveOverscan(boolean adaptiveOverscan) {
+        adaptiveOverscanProperty.set(adaptiveOverscan);
+    }
+
+    public final DoubleProperty minImageCoverageProperty() {
+        return minImageCoverageProperty;
+    }
+
+    public final double getMinImageCoverage() {
+        return minImageCoverageProperty.get();
+    }
+
+    public final void setMinImageCoverage(double minImageCoverage) {
+        minImageCoverageProperty.set(minImageCoverage);
+    }
+
+    public final DoubleProperty minImageResolutionProperty() {
+        return minImageResolutionProperty;
+    }
+
+    public final double getMinImageResolution() {
+        return minImageResolutionProperty.get();
+    }
+
+    public final void setMinImageResolution(double minImageResolution) {
+        minImageResolutionProperty.set(minImageResolution);
+    }
+
+    public final BooleanProperty snapToGridProperty() {
+        return snapToGridProperty;
+    }
+
+    public final boolean isSnapToGrid() {
+        return snapToGridProperty.get();
+    }
+
+    public final void setSnapToGrid(boolean snapToGrid) {
+        snapToGridProperty.set(snapToGrid);
+    }
+
     public final MapBoundingBox getBoundingBox() {
         return boundingBox;
     }
 
+    /**
+     * Gets the view scale at which the image for the current bounding box is requested, i.e. the number of
+     * image pixels per map unit.
+     */
+    public final double getImageViewScale() {
+        return imageViewScale;
+    }
+
     private void onViewportChanged(boolean projectionChanged, double longitudeOffset) {
         if (projectionChanged) {
-            setImage(null);
+            panMapCenter = null;
+            panSpeed = 0d;
+            setImage(null, null);
             updateImage();
 
         } else {
+            if (isAdaptiveOverscan()) {
+                updatePanSpeed();
+            }
+
             if (Math.abs(longitudeOffset) > 180d && boundingBox != null && boundingBox.hasValidBounds()) {
                 double offset = 360d * Math.signum(longitudeOffset);
 
                 boundingBox.setWest(boundingBox.getWest() + offset);
                 boundingBox.setEast(boundingBox.getEast() + offset);
 
+                if (pendingBoundingBox != null && pendingBoundingBox.hasValidBounds()) {
+                    pendingBoundingBox.setWest(pendingBoundingBox.getWest() + offset);
+                    pendingBoundingBox.setEast(pendingBoundingBox.getEast() + offset);
+                }
+
                 getChildren().forEach(image -> {
                     MapImage mapImage = (MapImage) image;
                     MapBoundingBox bbox = mapImage.getBoundingBox();
@@ -235,53 +339,159 @@ public abstract class MapImageLayer extends Parent implements IMapNode {
     protected final void updateImage() {
         MapBase map = getMap();
 
-        if (updateInProgress) {
-            updateTimeline.playFromStart(); // update image on next timer tick
+        updateTimeline.stop();
+        cancelPendingImage(); // superseded by the new request
 
-        } else if (map != null && map.getWidth() > 0 && map.getHeight() > 0) {
-            updateInProgress = true;
-
-            double width = map.getWidth() * getRelativeImageSize();
-            double height = map.getHeight() * getRelativeImageSize();
+        if (map != null && map.getWidth() > 0 && map.getHeight() > 0) {
+            double relativeImageSize = isAdaptiveOverscan() ? getOverscanImageSize() : getRelativeImageSize();
+            double width = map.getWidth() * relativeImageSize;
+            double height = map.getHeight() * relativeImageSize;
             double x = (map.getWidth() - width) / 2d;
             double y = (map.getHeight() - height) / 2d;
+            Bounds viewBounds = new BoundingBox(x, y, width, height);
 
-            boundingBox = map.viewBoundsToBoundingBox(new BoundingBox(x, y, width, height));
+            imageViewScale = map.getViewTransform().getScale();
 
-            if (boundingBox != null && boundingBox.hasValidBounds()) {
-                if (!Double.isNaN(getMinLatitude()) && boundingBox.getSouth() < getMinLatitude()) {
-                    boundingBox.setSouth(getMinLatitude());
-                }
+            if (isSnapToGrid() && map.getProjection().isNormalCylindrical()) {
+                double zoomLevel = ViewTransform.scaleToZoomLevel(imageViewScale);
+                imageViewScale = ViewTransform.zoomLevelToScale(Math.round(zoomLevel / gridZoomLevelStep) * gridZoomLevelStep);
 
-                if (!Double.isNaN(getMinLongitude()) && boundingBox.getWest() < getMinLongitude()) {
-                    boundingBox.setWest(getMinLongitude());
-                }
-
-                if (!Double.isNaN(getMaxLatitude()) && boundingBox.getNorth() > getMaxLatitude()) {
-                    boundingBox.setNorth(getMaxLatitude());
-                }
-
-                if (!Double.isNaN(getMaxLongitude()) && boundingBox.getEast() > getMaxLongitude()) {
-                    boundingBox.setEast(getMaxLongitude());
-                }
-
-                if (!Double.isNaN(getMaxBoundingBoxWidth()) && boundingBox.getWidth() > getMaxBoundingBoxWidth()) {
-                    double d = (boundingBox.getWidth() - getMaxBoundingBoxWidth()) / 2;
-                    boundingBox.setWest(boundingBox.getWest() + d);
-                    boundingBox.setEast(boundingBox.getEast() - d);
-                }
+                boundingBox = map.getProjection().boundsToBoundingBox(
+                        snapToGrid(map.getViewTransform().viewToMap(viewBounds), gridCellSize / imageViewScale));
+            } else {
+                boundingBox = map.viewBoundsToBoundingBox(viewBounds);
             }
 
+            limitBoundingBox(boundingBox);
+
+            MapBoundingBox imageBoundingBox = boundingBox != null ? boundingBox.clone() : null;
+            Task<Image> task = null;
             Image image = null;
 
             try {
-                image = loadImage();
+                task = createLoadImageTask();
+
+                if (task == null) {
+                    image = loadImage();
+                }
             } catch (Exception ex) {
                 Logger.getLogger(MapImageLayer.class.getName()).log(Level.WARNING, ex.toString());
             }
 
-            updateImage(image);
+            if (task != null) {
+                runLoadImageTask(task, imageBoundingBox);
+            } else {
+                updateImage(image, imageBoundingBox);
+            }
+        }
+    }
+
+    private static Bounds snapToGrid(Bounds bounds, double cellSize) {
+        double minX = Math.floor(bounds.getMinX() / cellSize) * cellSize;
+        double minY = Math.floor(bounds.getMinY() / cellSize) * cellSize;
+        double maxX = Math.ceil(bounds.getMaxX() / cellSize) * cellSize;
+        double maxY = Math.ceil(bounds.getMaxY() / cellSize) * cellSize;
+
+        return new BoundingBox(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    private void limitBoundingBox(MapBoundingBox boundingBox) {
+        if (boundingBox != null && boundingBox.hasValidBounds()) {
+            if (!Double.isNaN(getMinLatitude()) && boundingBox.getSouth() < getMinLatitude()) {
+                boundingBox.setSouth(getMinLatitude());
+            }
+
+            if (!Double.isNaN(getMinLongitude()) && boundingBox.getWest() < getMinLongitude()) {
+                boundingBox.setWest(getMinLongitude());
+            }
+
+            if (!Double.isNaN(getMaxLatitude()) && boundingBox.getNorth() > getMaxLatitude()) {
+                boundingBox.setNorth(getMaxLatitude());
+            }
+
+            if (!Double.isNaN(getMaxLongitude()) && boundingBox.getEast() > getMaxLongitude()) {
+                boundingBox.setEast(getMaxLongitude());
+            }
+
+            if (!Double.isNaN(getMaxBoundingBoxWidth()) && boundingBox.getWidth() > getMaxBoundingBoxWidth()) {
+                double d = (boundingBox.getWidth() - getMaxBoundingBoxWidth()) / 2;
+                boundingBox.setWest(boundingBox.getWest() + d);
+                boundingBox.setEast(boundingBox.getEast() - d);
+            }
+        }
+    }
+
+    /**
+     * Called after a viewport change. Skips the update in adaptive overscan mode while the current image
+     * still covers the viewport at sufficient resolution.
+     */
+    private void updateViewportImage() {
+        if (!isAdaptiveOverscan() || !isViewportCovered()) {
+            updateImage();
+        }
+    }
+
+    private boolean isViewportCovered() {
+        MapBase map = getMap();
+
+        if (map == null || imageViewScale <= 0d || boundingBox == null || !boundingBox.hasValidBounds()
+                || !map.getProjection().isNormalCylindrical()) {
+            return false;
+        }
+
+        double resolution = imageViewScale / map.getViewTransform().getScale();
+
+        if (resolution < getMinImageResolution() || resolution > 1d / getMinImageResolution()) {
+            return false;
+        }
+
+        MapBoundingBox viewBoundingBox = map.viewBoundsToBoundingBox(
+                new BoundingBox(0d, 0d, map.getWidth(), map.getHeight()));
+
+        if (viewBoundingBox == null || !viewBoundingBox.hasValidBounds()) {
+            return false;
+        }
+
+        limitBoundingBox(viewBoundingBox);
+
+        MapProjection projection = map.getProjection();
+        Bounds viewBounds = projection.boundingBoxToBounds(viewBoundingBox);
+        Bounds imageBounds = projection.boundingBoxToBounds(boundingBox);
+        double width = Math.min(viewBounds.getMaxX(), imageBounds.getMaxX()) - Math.max(viewBounds.getMinX(), imageBounds.getMinX());
+        double height = Math.min(viewBounds.getMaxY(), imageBounds.getMaxY()) - Math.max(viewBounds.getMinY(), imageBounds.getMinY());
+        double viewArea = viewBounds.getWidth() * viewBounds.getHeight();
+
+        return width > 0d && height > 0d && viewArea > 0d
+                && width * height >= (getMinImageCoverage() - 1e-9) * viewArea; // tolerate rounding errors
+    }
+
+    private void updatePanSpeed() {
+        MapBase map = getMap();
+        Point2D mapCenter = map.getViewTransform().viewToMap(new Point2D(map.getWidth() / 2d, map.getHeight() / 2d));
+        long time = System.nanoTime();
+
+        if (panMapCenter != null) {
+            double seconds = (time - panTime) / 1e9;
+            double distance = mapCenter.distance(panMapCenter) * map.getViewTransform().getScale();
+
+            // exponential moving average, ignore jumps like longitude wrap-arounds
+            //
+            if (seconds > 0d && distance < Math.max(map.getWidth(), map.getHeight())) {
+                double weight = 1d - Math.exp(-seconds / panSpeedTimeConstant);
+                panSpeed += weight * (distance / seconds - panSpeed);
+            }
         }
+
+        panMapCenter = mapCenter;
+        panTime = time;
+    }
+
+    private double getOverscanImageSize() {
+        MapBase map = getMap();
+        double viewSize = Math.min(map.getWidth(), map.getHeight());
+        double overscanSize = Math.min(1d + 2d * panSpeed * overscanLookahead / viewSize, maxOverscanImageSize);
+
+        return Math.max(overscanSize, getRelativeImageSize());
     }
 
     /**
@@ -291,25 +501,81 @@ public abstract class MapImageLayer extends Parent implements IMapNode {
      */
     protected abstract Image loadImage();
 
-    private void updateImage(Image image) {
-        if (image != null && image.isBackgroundLoading()) {
+    /**
+     * Optionally creates a Task that loads the image for the current bounding box in the background, e.g. from
+     * a cache. The Task is created on the JavaFX application thread and cancelled when it is superseded by a
+     * newer request. The default implementation returns null, in which case loadImage() is called.
+     */
+    protected Task<Image> createLoadImageTask() {
+        return null;
+    }
+
+    private void runLoadImageTask(Task<Image> task, MapBoundingBox imageBoundingBox) {
+        pendingTask = task;
+        pendingBoundingBox = imageBoundingBox;
+
+        task.setOnSucceeded(e -> {
+            if (task == pendingTask) {
+                Image image = task.getValue();
+                setImage(image != null && !image.isError() ? image : null, pendingBoundingBox);
+            }
+        });
+
+        task.setOnFailed(e -> {
+            if (task == pendingTask) {
+                Logger.getLogger(MapImageLayer.class.getName()).log(Level.WARNING, task.getException().toString());
+                setImage(null, pendingBoundingBox);
+            }
+        });
+
+        loadImageExecutor.execute(task);
+    }
+
+    private void cancelPendingImage() {
+        if (pendingImage != null) {
+            pendingImage.cancel(); // no effect if loading has already completed
+        }
+
+        if (pendingTask != null) {
+            pendingTask.cancel();
+        }
+
+        pendingImage = null;
+        pendingTask = null;
+        pendingBoundingBox = null;
+    }
+
+    /**
+     * Shows the image when it is loaded, unless it was superseded by a newer request in the meantime.
+     */
+    private void updateImage(Image image, MapBoundingBox imageBoundingBox) {
+        if (image != null && image.isBackgroundLoading() && image.getProgress() < 1d) {
+            pendingImage = image;
+            pendingBoundingBox = imageBoundingBox;
+
             image.progressProperty().addListener((observable, oldValue, newValue) -> {
-                if (newValue.doubleValue() >= 1d) {
-                    setImage(image);
+                if (newValue.doubleValue() >= 1d && image == pendingImage) {
+                    setImage(image, pendingBoundingBox);
                 }
             });
 
             image.errorProperty().addListener((observable, oldValue, newValue) -> {
-                if (newValue) {
-                    setImage(null);
+                if (newValue && image == pendingImage) {
+                    setImage(null, pendingBoundingBox);
                 }
             });
         } else {
-            setImage(image);
+            setImage(image != null && !image.isError() ? image : null, imageBoundingBox);
         }
     }
 
-    private void setImage(Image image) {
+    private void setImage(Image image, MapBoundingBox imageBoundingBox) {
+        cancelPendingImage();
+
+        if (image == null) {
+            imageViewScale = 0d; // request a new image on next viewport change
+        }
+
         MapBase map = getMap();
 
         if (map != null) {
@@ -332,7 +598,7 @@ public abstract class MapImageLayer extends Parent implements IMapNode {
             children.add(mapImage);
 
             mapImage.setImage(image);
-            mapImage.setBoundingBox(boundingBox != null ? boundingBox.clone() : null);
+            mapImage.setBoundingBox(imageBoundingBox);
 
             if (image != null) {
                 FadeTransition fadeTransition = new FadeTransition(MapBase.getImageFadeDuration(), mapImage);
@@ -344,7 +610,5 @@ public abstract class MapImageLayer extends Parent implements IMapNode {
                 children.get(1).setOpacity(0d);
             }
         }
-
-        updateInProgress = false;
     }
 }
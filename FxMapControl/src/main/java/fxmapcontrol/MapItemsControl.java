@@ -197,6 +197,13 @@ public class MapItemsControl<T> extends Parent implements IMapNode {
     }
 
     private int getItemIndex(MapItem<T> mapItem) {
+        int count = getChildren().size();
+
+        if (mapItem.getParent() != this
+                && (count == 0 || ((MapItem<?>) getChildren().get(count - 1)).getZIndex() <= mapItem.getZIndex())) {
+            return count; // fast path for appending a new item
+        }
+
         List<Integer> zIndexes = getChildren().stream()
                 .filter(i -> i != mapItem)
                 .map(i -> ((MapItem<T>) i).getZIndex())
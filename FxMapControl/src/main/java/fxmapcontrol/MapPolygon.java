@@ -5,10 +5,13 @@
 package fxmapcontrol;
 
 import java.util.Collection;
-import java.util.List;
 
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ListProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleListProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
@@ -16,6 +19,7 @@ import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.scene.shape.Polygon;
 import javafx.scene.shape.StrokeLineJoin;
+import javafx.scene.transform.Affine;
 
 /**
  * A Polygon with points given as geographic positions by the locations property. The optional location property helps
@@ -24,14 +28,34 @@ import javafx.scene.shape.StrokeLineJoin;
 public class MapPolygon extends Polygon implements IMapNode {
 
     private final ListProperty<Location> locationsProperty = new SimpleListProperty<>(this, "locations", FXCollections.observableArrayList());
+    private final ObjectProperty<ObservableLocationArray> locationArrayProperty = new SimpleObjectProperty<>(this, "locationArray");
     private final ObjectProperty<Location> locationProperty = new SimpleObjectProperty<>(this, "location");
-    private final MapNodeHelper mapNodeHelper = new MapNodeHelper(e -> updatePoints());
+    private final BooleanProperty useViewTransformProperty = new SimpleBooleanProperty(this, "useViewTransform");
+    private final DoubleProperty simplificationToleranceProperty = new SimpleDoubleProperty(this, "simplificationTolerance");
+    private final BooleanProperty clipToViewportProperty = new SimpleBooleanProperty(this, "clipToViewport");
+    private final Affine referenceTransform = new Affine();
+    private final MapShapeHelper mapShapeHelper
+            = new MapShapeHelper(true, getPoints(), referenceTransform, strokeWidthProperty(), locationsProperty);
+    private final MapNodeHelper mapNodeHelper = new MapNodeHelper(e -> mapShapeHelper.updatePoints());
 
     public MapPolygon() {
         getStyleClass().add("map-polygon");
         setFill(null);
         setStrokeLineJoin(StrokeLineJoin.ROUND);
-        locationsProperty.addListener((ListChangeListener.Change<? extends Location> c) -> updatePoints());
+        locationsProperty.addListener((ListChangeListener.Change<? extends Location> c) -> mapShapeHelper.locationsChanged(c));
+        locationArrayProperty.addListener((observable, oldValue, newValue) -> mapShapeHelper.setLocationArray(newValue));
+        locationProperty.addListener((observable, oldValue, newValue) -> mapShapeHelper.setLocation(newValue));
+        useViewTransformProperty.addListener((observable, oldValue, newValue) -> {
+            if (newValue) {
+                getTransforms().add(referenceTransform);
+            } else {
+                getTransforms().remove(referenceTransform);
+            }
+            mapShapeHelper.setUseViewTransform(newValue);
+        });
+        simplificationToleranceProperty.addListener(
+                (observable, oldValue, newValue) -> mapShapeHelper.setSimplificationTolerance(newValue.doubleValue()));
+        clipToViewportProperty.addListener((observable, oldValue, newValue) -> mapShapeHelper.setClipToViewport(newValue));
     }
 
     public MapPolygon(Collection<Location> locations) {
@@ -47,7 +71,7 @@ public class MapPolygon extends Polygon implements IMapNode {
     @Override
     public void setMap(MapBase map) {
         mapNodeHelper.setMap(map);
-        updatePoints();
+        mapShapeHelper.setMap(map);
     }
 
     public final ListProperty<Location> locationsProperty() {
@@ -62,6 +86,22 @@ public class MapPolygon extends Polygon implements IMapNode {
         locationsProperty.set(locations);
     }
 
+    /**
+     * Optional compact alternative to the locations property. When the locationArray property is not null,
+     * its values are used instead of the locations property.
+     */
+    public final ObjectProperty<ObservableLocationArray> locationArrayProperty() {
+        return locationArrayProperty;
+    }
+
+    public final ObservableLocationArray getLocationArray() {
+        return locationArrayProperty.get();
+    }
+
+    public final void setLocationArray(ObservableLocationArray locationArray) {
+        locationArrayProperty.set(locationArray);
+    }
+
     public final ObjectProperty<Location> locationProperty() {
         return locationProperty;
     }
@@ -74,13 +114,55 @@ public class MapPolygon extends Polygon implements IMapNode {
         locationProperty.set(location);
     }
 
-    private void updatePoints() {
-        List<Double> points = MapPolyline.updatePoints(getMap(), getLocation(), getLocations());
+    /**
+     * When the useViewTransform property is set, the points of the shape are only updated when the
+     * projected locations or the view scale have changed, and panning or rotating the map only updates an
+     * Affine in the shape's transforms. Other transforms should then not be added to the shape.
+     */
+    public final BooleanProperty useViewTransformProperty() {
+        return useViewTransformProperty;
+    }
+
+    public final boolean isUseViewTransform() {
+        return useViewTransformProperty.get();
+    }
+
+    public final void setUseViewTransform(boolean useViewTransform) {
+        useViewTransformProperty.set(useViewTransform);
+    }
+
+    /**
+     * When the simplificationTolerance property is greater than zero, vertices that do not deviate by at
+     * least that number of pixels from a Douglas-Peucker simplification of the shape at the current view
+     * scale are omitted. A value of 0.5 gives a visually lossless simplification. The default value zero
+     * disables simplification.
+     */
+    public final DoubleProperty simplificationToleranceProperty() {
+        return simplificationToleranceProperty;
+    }
+
+    public final double getSimplificationTolerance() {
+        return simplificationToleranceProperty.get();
+    }
+
+    public final void setSimplificationTolerance(double simplificationTolerance) {
+        simplificationToleranceProperty.set(simplificationTolerance);
+    }
+
+    /**
+     * When the clipToViewport property is set, the shape is clipped against the map viewport, enlarged by
+     * a margin that exceeds the stroke width, so that parts of the shape outside the viewport are not
+     * passed to the renderer. Clipping is not applied when the useViewTransform property is set.
+     */
+    public final BooleanProperty clipToViewportProperty() {
+        return clipToViewportProperty;
+    }
+
+    public final boolean isClipToViewport() {
+        return clipToViewportProperty.get();
+    }
 
-        if (points != null) {
-            getPoints().setAll(points);
-        } else {
-            getPoints().setAll(new Double[]{0d, 0d}); // clear() or empty collection is ignored
-        }
+    public final void setClipToViewport(boolean clipToViewport) {
+        clipToViewportProperty.set(clipToViewport);
     }
 }
@@ -4,19 +4,21 @@
  */
 package fxmapcontrol;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ListProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleListProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.geometry.Point2D;
 import javafx.scene.shape.Polyline;
 import javafx.scene.shape.StrokeLineJoin;
+import javafx.scene.transform.Affine;
 
 /**
  * A Polyline with points given as geographic positions by the locations property. The optional
@@ -25,15 +27,55 @@ import javafx.scene.shape.StrokeLineJoin;
  */
 public class MapPolyline extends Polyline implements IMapNode {
 
+    /**
+     * Defines how consecutive locations are connected.
+     */
+    public enum LineType {
+        /**
+         * Straight lines in view coordinates.
+         */
+        STRAIGHT,
+        /**
+         * Great circle arcs, i.e. shortest paths on the sphere.
+         */
+        GREAT_CIRCLE,
+        /**
+         * Rhumb lines, i.e. lines of constant bearing, which are straight lines in a Mercator projection.
+         */
+        RHUMB
+    }
+
     private final ListProperty<Location> locationsProperty = new SimpleListProperty<>(this, "locations", FXCollections.observableArrayList());
+    private final ObjectProperty<ObservableLocationArray> locationArrayProperty = new SimpleObjectProperty<>(this, "locationArray");
     private final ObjectProperty<Location> locationProperty = new SimpleObjectProperty<>(this, "location");
-    private final MapNodeHelper mapNodeHelper = new MapNodeHelper(e -> updatePoints());
+    private final BooleanProperty useViewTransformProperty = new SimpleBooleanProperty(this, "useViewTransform");
+    private final DoubleProperty simplificationToleranceProperty = new SimpleDoubleProperty(this, "simplificationTolerance");
+    private final BooleanProperty clipToViewportProperty = new SimpleBooleanProperty(this, "clipToViewport");
+    private final ObjectProperty<LineType> lineTypeProperty = new SimpleObjectProperty<>(this, "lineType", LineType.STRAIGHT);
+    private final Affine referenceTransform = new Affine();
+    private final MapShapeHelper mapShapeHelper
+            = new MapShapeHelper(false, getPoints(), referenceTransform, strokeWidthProperty(), locationsProperty);
+    private final MapNodeHelper mapNodeHelper = new MapNodeHelper(e -> mapShapeHelper.updatePoints());
 
     public MapPolyline() {
         getStyleClass().add("map-polyline");
         setFill(null);
         setStrokeLineJoin(StrokeLineJoin.ROUND);
-        locationsProperty.addListener((ListChangeListener.Change<? extends Location> c) -> updatePoints());
+        locationsProperty.addListener((ListChangeListener.Change<? extends Location> c) -> mapShapeHelper.locationsChanged(c));
+        locationArrayProperty.addListener((observable, oldValue, newValue) -> mapShapeHelper.setLocationArray(newValue));
+        locationProperty.addListener((observable, oldValue, newValue) -> mapShapeHelper.setLocation(newValue));
+        useViewTransformProperty.addListener((observable, oldValue, newValue) -> {
+            if (newValue) {
+                getTransforms().add(referenceTransform);
+            } else {
+                getTransforms().remove(referenceTransform);
+            }
+            mapShapeHelper.setUseViewTransform(newValue);
+        });
+        simplificationToleranceProperty.addListener(
+                (observable, oldValue, newValue) -> mapShapeHelper.setSimplificationTolerance(newValue.doubleValue()));
+        clipToViewportProperty.addListener((observable, oldValue, newValue) -> mapShapeHelper.setClipToViewport(newValue));
+        lineTypeProperty.addListener((observable, oldValue, newValue) -> mapShapeHelper.setLineType(newValue));
     }
 
     public MapPolyline(Collection<Location> locations) {
@@ -49,7 +91,7 @@ public class MapPolyline extends Polyline implements IMapNode {
     @Override
     public void setMap(MapBase map) {
         mapNodeHelper.setMap(map);
-        updatePoints();
+        mapShapeHelper.setMap(map);
     }
 
     public final ListProperty<Location> locationsProperty() {
@@ -64,6 +106,22 @@ public class MapPolyline extends Polyline implements IMapNode {
         locationsProperty.set(locations);
     }
 
+    /**
+     * Optional compact alternative to the locations property. When the locationArray property is not null,
+     * its values are used instead of the locations property.
+     */
+    public final ObjectProperty<ObservableLocationArray> locationArrayProperty() {
+        return locationArrayProperty;
+    }
+
+    public final ObservableLocationArray getLocationArray() {
+        return locationArrayProperty.get();
+    }
+
+    public final void setLocationArray(ObservableLocationArray locationArray) {
+        locationArrayProperty.set(locationArray);
+    }
+
     public final ObjectProperty<Location> locationProperty() {
         return locationProperty;
     }
@@ -76,49 +134,73 @@ public class MapPolyline extends Polyline implements IMapNode {
         locationProperty.set(location);
     }
 
-    private void updatePoints() {
-        List<Double> points = updatePoints(getMap(), getLocation(), getLocations());
+    /**
+     * When the useViewTransform property is set, the points of the shape are only updated when the
+     * projected locations or the view scale have changed, and panning or rotating the map only updates an
+     * Affine in the shape's transforms. Other transforms should then not be added to the shape.
+     */
+    public final BooleanProperty useViewTransformProperty() {
+        return useViewTransformProperty;
+    }
 
-        if (points != null) {
-            getPoints().setAll(points);
-        } else {
-            getPoints().setAll(new Double[]{0d, 0d}); // clear() or empty collection is ignored
-        }
+    public final boolean isUseViewTransform() {
+        return useViewTransformProperty.get();
     }
 
-    static List<Double> updatePoints(MapBase map, Location location, ObservableList<Location> locations) {
-        List<Double> points = null;
+    public final void setUseViewTransform(boolean useViewTransform) {
+        useViewTransformProperty.set(useViewTransform);
+    }
 
-        if (map != null && locations != null && !locations.isEmpty()) {
-            double longitudeOffset = 0d;
+    /**
+     * When the simplificationTolerance property is greater than zero, vertices that do not deviate by at
+     * least that number of pixels from a Douglas-Peucker simplification of the shape at the current view
+     * scale are omitted. A value of 0.5 gives a visually lossless simplification. The default value zero
+     * disables simplification.
+     */
+    public final DoubleProperty simplificationToleranceProperty() {
+        return simplificationToleranceProperty;
+    }
 
-            if (location != null && map.getProjection().isNormalCylindrical()) {
-                Point2D viewportPosition = map.locationToView(location);
+    public final double getSimplificationTolerance() {
+        return simplificationToleranceProperty.get();
+    }
 
-                if (viewportPosition.getX() < 0d || viewportPosition.getX() > map.getWidth()
-                        || viewportPosition.getY() < 0d || viewportPosition.getY() > map.getHeight()) {
+    public final void setSimplificationTolerance(double simplificationTolerance) {
+        simplificationToleranceProperty.set(simplificationTolerance);
+    }
 
-                    double nearestLongitude = Location.nearestLongitude(location.longitude(), map.getCenter().longitude());
-                    longitudeOffset = nearestLongitude - location.longitude();
-                }
-            }
+    /**
+     * When the clipToViewport property is set, the shape is clipped against the map viewport, enlarged by
+     * a margin that exceeds the stroke width, so that parts of the shape outside the viewport are not
+     * passed to the renderer. Clipping is not applied when the useViewTransform property is set.
+     */
+    public final BooleanProperty clipToViewportProperty() {
+        return clipToViewportProperty;
+    }
 
-            points = new ArrayList<>(locations.size() * 2);
+    public final boolean isClipToViewport() {
+        return clipToViewportProperty.get();
+    }
 
-            for (Location loc : locations) {
-                Point2D p = map.locationToView(
-                        new Location(loc.latitude(), loc.longitude() + longitudeOffset));
+    public final void setClipToViewport(boolean clipToViewport) {
+        clipToViewportProperty.set(clipToViewport);
+    }
 
-                if (Double.isInfinite(p.getX()) || Double.isInfinite(p.getY())) {
-                    points = null;
-                    break;
-                }
+    /**
+     * When the lineType property is GREAT_CIRCLE or RHUMB, the segments between consecutive locations are
+     * subdivided adaptively, so that they deviate by less than a pixel from the corresponding great circle
+     * arcs or rhumb lines at the current projection and zoom level. Great circle segments with a longitude
+     * difference of more than 180 degrees remain straight lines. The default value is STRAIGHT.
+     */
+    public final ObjectProperty<LineType> lineTypeProperty() {
+        return lineTypeProperty;
+    }
 
-                points.add(p.getX());
-                points.add(p.getY());
-            }
-        }
+    public final LineType getLineType() {
+        return lineTypeProperty.get();
+    }
 
-        return points;
+    public final void setLineType(LineType lineType) {
+        lineTypeProperty.set(lineType);
     }
 }
@@ -48,6 +48,14 @@ public abstract class MapProjection {
      */
     public final void setCenter(Location center) {
         this.center = center;
+        onCenterChanged();
+    }
+
+    /**
+     * Called when the projection center has been set. Derived classes may override this method to
+     * precompute center-dependent terms.
+     */
+    protected void onCenterChanged() {
     }
 
     /**
@@ -81,6 +89,38 @@ public abstract class MapProjection {
      */
     public abstract Location mapToLocation(Point2D point);
 
+    /**
+     * Transforms count geographic coordinates, given as interleaved latitude and longitude values in src
+     * starting at srcOffset, to cartesian map coordinates, written as interleaved x and y values to dst
+     * starting at dstOffset. src and dst may be the same array with the same offset.
+     * <p>
+     * The default implementation calls locationToMap(Location) for each point. Derived classes override
+     * it by an implementation that does not allocate objects.
+     */
+    public void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        for (int i = 0; i < 2 * count; i += 2) {
+            Point2D point = locationToMap(new Location(src[srcOffset + i], src[srcOffset + i + 1]));
+            dst[dstOffset + i] = point.getX();
+            dst[dstOffset + i + 1] = point.getY();
+        }
+    }
+
+    /**
+     * Transforms count cartesian map coordinates, given as interleaved x and y values in src starting at
+     * srcOffset, to geographic coordinates, written as interleaved latitude and longitude values to dst
+     * starting at dstOffset. src and dst may be the same array with the same offset.
+     * <p>
+     * The default implementation calls mapToLocation(Point2D) for each point. Derived classes override
+     * it by an implementation that does not allocate objects.
+     */
+    public void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        for (int i = 0; i < 2 * count; i += 2) {
+            Location location = mapToLocation(new Point2D(src[srcOffset + i], src[srcOffset + i + 1]));
+            dst[dstOffset + i] = location.latitude();
+            dst[dstOffset + i + 1] = location.longitude();
+        }
+    }
+
     /**
      * Transforms a MapBoundingBox in geographic coordinates to Bounds in cartesian map coordinates.
      */
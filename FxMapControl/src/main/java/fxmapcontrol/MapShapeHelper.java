@@ -0,0 +1,789 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+import javafx.beans.value.ObservableDoubleValue;
+import javafx.collections.ArrayChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.transform.Affine;
+
+/**
+ * Helper class for MapPolyline and MapPolygon. Updates the points of a shape from its locations and from
+ * the values of its properties, which are passed to the setter methods of the helper, and handles changes
+ * of the locations.
+ * <p>
+ * Caches the projected map coordinates of a shape's locations, so that an ordinary viewport change only
+ * applies the affine map-to-view transform. The locations are
+ * projected again when the projection instance, the center of an azimuthal projection or the longitude
+ * offset of the shape has changed, or after invalidate() was called.
+ * <p>
+ * In view transform mode, the cached map coordinates are converted to reference points, i.e. pixels at the
+ * view scale relative to the view center at the time of conversion, which are valid for as long as neither
+ * the map coordinates nor the view scale change. Panning and rotating the map then only updates the Affine
+ * that transforms the reference points to view coordinates. Since that transform never scales, the shape's
+ * stroke width needs no compensation.
+ * <p>
+ * With a simplification tolerance greater than zero, only the vertices with a Douglas-Peucker significance
+ * of at least the tolerance in pixels at the current view scale are used. The significance is calculated
+ * once per projection of the map coordinates, in a background thread for large shapes. All vertices are
+ * used until it is available. For appended locations, the significance is extended by calculating it for
+ * the points from an anchor point to the end, where the anchor moves to the previous last point whenever
+ * that tail would exceed maxIncrementalSimplificationCount points. Since anchor points are always kept,
+ * this approximates the significance of all points without calculating it again.
+ * <p>
+ * View points may be clipped against the viewport, enlarged by a margin that exceeds the stroke width.
+ * Clipping is not applied to reference points, which must remain valid while the map is panned.
+ * <p>
+ * Locations that are appended to or removed from the shape's locations are applied incrementally to the
+ * cached map coordinates, which avoids projecting all locations again. Unless the shape is simplified,
+ * clipped or not straight, only the new points are then added to or the removed points are removed from
+ * the shape's points.
+ * <p>
+ * For a polyline with a great circle or rhumb line type, the segments between the cached map coordinates
+ * are densified adaptively for a maximum deviation of maxSegmentError pixels. The densified coordinates are
+ * cached for a few zoom buckets, i.e. powers of two of the view scale, and are calculated in a background
+ * thread for large shapes. Until they are available, the densified coordinates of another zoom bucket or
+ * straight segments are used. Simplification then applies to the densified coordinates.
+ */
+final class MapShapeHelper {
+
+    private static final int maxSynchronousSimplificationCount = 10000;
+    private static final int maxSynchronousDensificationCount = 1000;
+    private static final int maxIncrementalSimplificationCount = 1000;
+    private static final int maxDensifiedBuckets = 4;
+    private static final double maxSegmentError = 0.5; // pixels
+    private static final double clipMargin = 10d; // pixels in addition to stroke width
+
+    private static final ExecutorService backgroundExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final boolean isClosed;
+    private final ObservableList<Double> points;
+    private final Affine referenceTransform;
+    private final ObservableDoubleValue strokeWidth;
+    private final List<Location> locations;
+    private final ArrayChangeListener<ObservableLocationArray> locationArrayListener
+            = (array, sizeChanged, from, to) -> locationArrayChanged(array, sizeChanged, from, to);
+    private ObservableLocationArray locationArray;
+    private MapBase map;
+    private Location location;
+    private boolean useViewTransform;
+    private double simplificationTolerance;
+    private boolean clipToViewport;
+    private double[] mapCoordinates; // interleaved x and y values in map coordinates, may have spare capacity
+    private int mapCoordinateCount; // number of points in mapCoordinates
+    private final TreeMap<Integer, double[]> densifiedCoordinates = new TreeMap<>(); // by zoom bucket
+    private final Set<Integer> densificationPending = new HashSet<>();
+    private MapPolyline.LineType lineType = MapPolyline.LineType.STRAIGHT;
+    private double[] significance; // Douglas-Peucker significance of significanceCoordinates, or null
+    private double[] significanceCoordinates;
+    private boolean significancePending;
+    private int significanceAnchor; // index of the first point of the incrementally calculated significance
+    private int mapCoordinateRevision; // incremented when the map coordinates change other than by appending
+    private boolean isInfinite;
+    private MapProjection projection;
+    private Location projectionCenter;
+    private double longitudeOffset;
+    private double referenceScale; // zero when the reference points must be rebuilt
+    private int referenceCount; // number of map coordinate points covered by the reference points
+    private double referenceX;
+    private double referenceY;
+
+    /**
+     * Creates a MapShapeHelper for a polygon (isClosed is true) or a polyline, which updates the shape's
+     * points and, in view transform mode, the referenceTransform in the shape's transforms. The locations
+     * should be the shape's locations property, so that they always contain the current list. The
+     * strokeWidth enlarges the clip bounds.
+     */
+    MapShapeHelper(boolean isClosed, ObservableList<Double> points, Affine referenceTransform,
+            ObservableDoubleValue strokeWidth, List<Location> locations) {
+
+        this.isClosed = isClosed;
+        this.points = points;
+        this.referenceTransform = referenceTransform;
+        this.strokeWidth = strokeWidth;
+        this.locations = locations;
+    }
+
+    void setMap(MapBase map) {
+        this.map = map;
+        updatePoints();
+    }
+
+    /**
+     * Sets the location that determines the longitude offset of the shape. Applied on the next update.
+     */
+    void setLocation(Location location) {
+        this.location = location;
+    }
+
+    /**
+     * Sets the compact alternative to the locations, which takes precedence when it is not null.
+     */
+    void setLocationArray(ObservableLocationArray locationArray) {
+        if (this.locationArray != null) {
+            this.locationArray.removeListener(locationArrayListener);
+        }
+
+        this.locationArray = locationArray;
+
+        if (locationArray != null) {
+            locationArray.addListener(locationArrayListener);
+        }
+
+        updateLocations();
+    }
+
+    void setUseViewTransform(boolean useViewTransform) {
+        this.useViewTransform = useViewTransform;
+        invalidate();
+        updatePoints();
+    }
+
+    void setSimplificationTolerance(double simplificationTolerance) {
+        this.simplificationTolerance = simplificationTolerance;
+        invalidate();
+        updatePoints();
+    }
+
+    void setClipToViewport(boolean clipToViewport) {
+        this.clipToViewport = clipToViewport;
+        updatePoints();
+    }
+
+    /**
+     * Sets the line type of a polyline. A null value is equivalent to STRAIGHT.
+     */
+    void setLineType(MapPolyline.LineType lineType) {
+        this.lineType = lineType != null ? lineType : MapPolyline.LineType.STRAIGHT;
+        clearDerivedCoordinates();
+        updatePoints();
+    }
+
+    /**
+     * Handles a change of the shape's locations, which is ignored while the locationArray is not null.
+     */
+    void locationsChanged(ListChangeListener.Change<? extends Location> change) {
+        if (locationArray == null && change.next() && !change.wasPermutated() && !change.wasUpdated()) {
+            int from = change.getFrom();
+            boolean added = change.wasAdded() && !change.wasRemoved();
+            boolean removed = change.wasRemoved() && !change.wasAdded();
+            int to = added ? change.getTo() : from + change.getRemovedSize();
+
+            if (!change.next()) { // single change
+                if (added) {
+                    locationsAdded(from, to);
+                    return;
+                }
+                if (removed) {
+                    locationsRemoved(from, to);
+                    return;
+                }
+            }
+        }
+
+        updateLocations();
+    }
+
+    /**
+     * Updates the shape's points, or only the referenceTransform in view transform mode when the reference
+     * points are still valid.
+     */
+    void updatePoints() {
+        List<Double> newPoints = useViewTransform
+                ? getReferencePoints(map, location, simplificationTolerance, referenceTransform)
+                : getViewPoints(map, location, simplificationTolerance, getClipBounds());
+
+        if (newPoints == null) { // reference points unchanged
+            return;
+        }
+
+        if (!newPoints.isEmpty()) {
+            points.setAll(newPoints);
+        } else {
+            points.setAll(new Double[]{0d, 0d}); // clear() or empty collection is ignored
+        }
+    }
+
+    private void locationArrayChanged(ObservableLocationArray array, boolean sizeChanged, int from, int to) {
+        int previousSize = mapCoordinates != null ? mapCoordinateCount : -1;
+
+        if (sizeChanged && from < to && to == array.size()) {
+            locationsAdded(from, to);
+        } else if (sizeChanged && from == to && array.size() < previousSize) { // see ObservableLocationArray.remove
+            locationsRemoved(from, from + previousSize - array.size());
+        } else {
+            updateLocations();
+        }
+    }
+
+    /**
+     * Applies locations appended at the end of the locations incrementally, i.e. only the new locations are
+     * projected and, unless the shape is simplified or clipped, only their points are added.
+     */
+    private void locationsAdded(int from, int to) {
+        if (to < getLocationCount()) {
+            updateLocations(); // not appended at the end
+            return;
+        }
+
+        if (addLocations(from, to) && canUpdatePointsIncrementally() && points.size() == 2 * from) {
+            List<Double> addedPoints = getAddedPoints(map, from, to, useViewTransform);
+
+            if (addedPoints != null) {
+                points.addAll(addedPoints);
+                return;
+            }
+        }
+
+        updatePoints();
+    }
+
+    private void locationsRemoved(int from, int to) {
+        int size = points.size();
+
+        if (removeLocations(from, to) && canUpdatePointsIncrementally()
+                && size == 2 * (to - from) + 2 * getLocationCount()
+                && size > 2 * (to - from) // keep at least one point
+                && (!useViewTransform || removeReferencePoints(from, to))) {
+
+            points.remove(2 * from, 2 * to);
+            return;
+        }
+
+        updatePoints();
+    }
+
+    private boolean canUpdatePointsIncrementally() {
+        return map != null
+                && simplificationTolerance <= 0d
+                && lineType == MapPolyline.LineType.STRAIGHT
+                && (useViewTransform || !clipToViewport);
+    }
+
+    private void updateLocations() {
+        invalidate();
+        updatePoints();
+    }
+
+    private Bounds getClipBounds() {
+        if (map == null || !clipToViewport) {
+            return null;
+        }
+
+        double margin = strokeWidth.get() + clipMargin;
+
+        return new BoundingBox(-margin, -margin, map.getWidth() + 2d * margin, map.getHeight() + 2d * margin);
+    }
+
+    /**
+     * Discards the cached map coordinates.
+     */
+    private void invalidate() {
+        mapCoordinates = null;
+        mapCoordinateRevision++;
+        clearDerivedCoordinates();
+    }
+
+    /**
+     * Projects the locations from index from (inclusive) to index to (exclusive), which have been appended to
+     * the locations, and appends them to the cached map coordinates. Returns false, after invalidating the
+     * cache, when the cache was not valid for the previous locations or a new location can not be
+     * transformed to finite map coordinates.
+     */
+    private boolean addLocations(int from, int to) {
+        if (mapCoordinates == null || isInfinite || mapCoordinateCount != from || getLocationCount() != to) {
+            invalidate();
+            return false;
+        }
+
+        double[] previousSignificance = significanceCoordinates == mapCoordinates && significance != null
+                && significance.length == from && lineType == MapPolyline.LineType.STRAIGHT ? significance : null;
+        int previousAnchor = significanceAnchor;
+
+        if (2 * to > mapCoordinates.length) {
+            mapCoordinates = Arrays.copyOf(mapCoordinates, 2 * Math.max(to, 3 * mapCoordinateCount / 2));
+        }
+
+        copyLocations(from, to, mapCoordinates, longitudeOffset);
+        projection.locationToMap(mapCoordinates, 2 * from, mapCoordinates, 2 * from, to - from);
+
+        for (int i = 2 * from; i < 2 * to; i++) {
+            if (Double.isInfinite(mapCoordinates[i])) {
+                invalidate();
+                return false;
+            }
+        }
+
+        mapCoordinateCount = to;
+        clearDerivedCoordinates();
+
+        if (previousSignificance != null) {
+            extendSignificance(previousSignificance, previousAnchor, from);
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes the points from index from (inclusive) to index to (exclusive), which have been removed from
+     * the locations, from the cached map coordinates. Returns false, after invalidating the cache, when the
+     * cache was not valid for the previous locations.
+     */
+    private boolean removeLocations(int from, int to) {
+        if (mapCoordinates == null || isInfinite || mapCoordinateCount - (to - from) != getLocationCount()) {
+            invalidate();
+            return false;
+        }
+
+        // copy to a new array, since a background significance calculation may still read the old one
+        //
+        double[] coordinates = new double[mapCoordinates.length];
+        System.arraycopy(mapCoordinates, 0, coordinates, 0, 2 * from);
+        System.arraycopy(mapCoordinates, 2 * to, coordinates, 2 * from, 2 * (mapCoordinateCount - to));
+
+        mapCoordinates = coordinates;
+        mapCoordinateCount -= to - from;
+        mapCoordinateRevision++;
+        clearDerivedCoordinates();
+        return true;
+    }
+
+    /**
+     * Gets the view coordinates, or the reference points when reference is true, of the cached map
+     * coordinates from index from (inclusive) to index to (exclusive), after these were appended by
+     * addLocations. The points are neither simplified nor clipped. Returns null when the previously returned
+     * reference points do not end at index from.
+     */
+    private List<Double> getAddedPoints(MapBase map, int from, int to, boolean reference) {
+        double[] coordinates = Arrays.copyOfRange(mapCoordinates, 2 * from, 2 * to);
+
+        if (reference) {
+            if (referenceScale == 0d || referenceCount != from) {
+                return null;
+            }
+
+            for (int i = 0; i < coordinates.length; i += 2) {
+                coordinates[i] = referenceScale * (coordinates[i] - referenceX);
+                coordinates[i + 1] = referenceScale * (coordinates[i + 1] - referenceY);
+            }
+
+            referenceCount = to;
+        } else {
+            map.getProjectionViewTransform().mapToView(coordinates, 0, to - from);
+        }
+
+        return toList(coordinates);
+    }
+
+    /**
+     * Must be called when reference points from index from (inclusive) to index to (exclusive) have been
+     * removed after removeLocations. Returns false when the previously returned reference points did not
+     * cover all points, i.e. when they can not be updated incrementally.
+     */
+    private boolean removeReferencePoints(int from, int to) {
+        if (referenceScale == 0d || referenceCount - (to - from) != mapCoordinateCount) {
+            return false;
+        }
+
+        referenceCount = mapCoordinateCount;
+        return true;
+    }
+
+    /**
+     * Gets the view coordinates of the locations as interleaved x and y values, optionally clipped against
+     * clipBounds, or an empty list when there are no locations, a location can not be transformed to finite
+     * map coordinates, or the shape is clipped entirely.
+     */
+    private List<Double> getViewPoints(MapBase map, Location location, double tolerance, Bounds clipBounds) {
+        if (!updateMapCoordinates(map, location)) {
+            return List.of();
+        }
+
+        double[] coordinates = getSignificantCoordinates(map.getViewScale(), tolerance);
+        map.getProjectionViewTransform().mapToView(coordinates, 0, coordinates.length / 2);
+
+        if (clipBounds != null) {
+            coordinates = ShapeClipper.clip(coordinates, coordinates.length / 2, isClosed,
+                    clipBounds.getMinX(), clipBounds.getMinY(), clipBounds.getMaxX(), clipBounds.getMaxY());
+        }
+
+        return toList(coordinates);
+    }
+
+    /**
+     * Gets the reference points of the locations as interleaved x and y values and sets the transform from
+     * reference points to view coordinates. Returns null when the previously returned reference points are
+     * still valid, or an empty list when there are no points to show.
+     */
+    private List<Double> getReferencePoints(MapBase map, Location location, double tolerance, Affine transform) {
+        if (!updateMapCoordinates(map, location)) {
+            referenceScale = 0d;
+            return List.of();
+        }
+
+        List<Double> referencePoints = null;
+        double scale = map.getViewScale();
+
+        if (referenceScale != scale || referenceCount != mapCoordinateCount) {
+            Point2D center = map.getViewTransform().viewToMap(new Point2D(map.getWidth() / 2d, map.getHeight() / 2d));
+            double[] coordinates = getSignificantCoordinates(scale, tolerance);
+
+            referenceScale = scale;
+            referenceCount = mapCoordinateCount;
+            referenceX = center.getX();
+            referenceY = center.getY();
+            referencePoints = new ArrayList<>(coordinates.length);
+
+            for (int i = 0; i < coordinates.length; i += 2) {
+                referencePoints.add(scale * (coordinates[i] - referenceX));
+                referencePoints.add(scale * (coordinates[i + 1] - referenceY));
+            }
+        }
+
+        // concatenate the map-to-view transform with the reference-to-map transform
+        //
+        ProjectionViewTransform t = map.getProjectionViewTransform();
+        transform.setToTransform(
+                t.mxx() / referenceScale, t.mxy() / referenceScale, t.mxx() * referenceX + t.mxy() * referenceY + t.tx(),
+                t.myx() / referenceScale, t.myy() / referenceScale, t.myx() * referenceX + t.myy() * referenceY + t.ty());
+
+        return referencePoints;
+    }
+
+    /**
+     * Projects the locations again if the cached map coordinates are not valid for the current projection
+     * and longitude offset. Returns false when there are no finite map coordinates.
+     */
+    private boolean updateMapCoordinates(MapBase map, Location location) {
+        int count = getLocationCount();
+
+        if (map == null || count == 0) {
+            invalidate();
+            return false;
+        }
+
+        MapProjection mapProjection = map.getProjection();
+        Location center = mapProjection instanceof AzimuthalProjection ? mapProjection.getCenter() : null;
+        double offset = getLongitudeOffset(map, location);
+
+        if (mapCoordinates == null
+                || mapCoordinateCount != count
+                || projection != mapProjection
+                || !Objects.equals(projectionCenter, center)
+                || longitudeOffset != offset) {
+
+            projectMapCoordinates(mapProjection, count, offset);
+            projection = mapProjection;
+            projectionCenter = center;
+            longitudeOffset = offset;
+            referenceScale = 0d;
+        }
+
+        return !isInfinite;
+    }
+
+    private int getLocationCount() {
+        return locationArray != null ? locationArray.size() : locations != null ? locations.size() : 0;
+    }
+
+    private void projectMapCoordinates(MapProjection mapProjection, int count, double offset) {
+        double[] coordinates = new double[2 * count];
+
+        copyLocations(0, count, coordinates, offset);
+        mapProjection.locationToMap(coordinates, 0, coordinates, 0, count);
+
+        isInfinite = false;
+
+        for (double c : coordinates) {
+            if (Double.isInfinite(c)) {
+                isInfinite = true;
+                break;
+            }
+        }
+
+        mapCoordinates = coordinates;
+        mapCoordinateCount = count;
+        mapCoordinateRevision++;
+        clearDerivedCoordinates();
+    }
+
+    /**
+     * Discards the significance and the densified coordinates, which depend on the map coordinates.
+     */
+    private void clearDerivedCoordinates() {
+        significance = null;
+        significanceCoordinates = null;
+        densifiedCoordinates.clear();
+    }
+
+    /**
+     * Copies the locations from index from to index to as interleaved latitude and longitude values, with
+     * the longitude offset added, to coordinates starting at index 2 * from.
+     */
+    private void copyLocations(int from, int to, double[] coordinates, double offset) {
+        if (locationArray != null) {
+            locationArray.copyTo(from, coordinates, 2 * from, to - from);
+
+            if (offset != 0d) {
+                for (int i = 2 * from + 1; i < 2 * to; i += 2) {
+                    coordinates[i] += offset;
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                Location loc = locations.get(i);
+                coordinates[2 * i] = loc.latitude();
+                coordinates[2 * i + 1] = loc.longitude() + offset;
+            }
+        }
+    }
+
+    /**
+     * Gets a new array with the map coordinates of the vertices that are significant for the tolerance in
+     * pixels at the view scale, or of all vertices when tolerance is zero or the significance is not yet
+     * available. The vertices are those of the densified coordinates for lines that are not straight.
+     */
+    private double[] getSignificantCoordinates(double scale, double tolerance) {
+        double[] coordinates = mapCoordinates;
+        int count = mapCoordinateCount;
+
+        if (lineType != MapPolyline.LineType.STRAIGHT && count > 1) {
+            double[] densified = getDensifiedCoordinates(scale);
+
+            if (densified != null) {
+                coordinates = densified;
+                count = densified.length / 2;
+            }
+        }
+
+        if (tolerance <= 0d || count <= 2 || !updateSignificance(coordinates, count)) {
+            return Arrays.copyOf(coordinates, 2 * count);
+        }
+
+        double minSignificance = tolerance / scale;
+        double[] significantCoordinates = new double[2 * PolylineSimplifier.getSignificantCount(significance, minSignificance)];
+
+        for (int i = 0, j = 0; i < significance.length; i++) {
+            if (significance[i] >= minSignificance) {
+                significantCoordinates[j++] = coordinates[2 * i];
+                significantCoordinates[j++] = coordinates[2 * i + 1];
+            }
+        }
+
+        return significantCoordinates;
+    }
+
+    /**
+     * Returns true when the significance of count points in coordinates is available. Otherwise, the
+     * significance is either calculated synchronously, or a background calculation is started.
+     */
+    private boolean updateSignificance(double[] coordinates, int count) {
+        if (significanceCoordinates != coordinates || significance.length != count) {
+            significance = null;
+            significanceCoordinates = null;
+        }
+
+        if (significance == null && count <= maxSynchronousSimplificationCount) {
+            significance = PolylineSimplifier.getSignificance(coordinates, 0, count);
+            significanceCoordinates = coordinates;
+            significanceAnchor = 0;
+
+        } else if (significance == null && !significancePending) {
+            boolean isMapCoordinates = coordinates == mapCoordinates;
+            int revision = mapCoordinateRevision;
+            significancePending = true;
+
+            CompletableFuture.supplyAsync(() -> PolylineSimplifier.getSignificance(coordinates, 0, count), backgroundExecutor)
+                    .whenComplete((result, exception) -> Platform.runLater(() -> {
+                        significancePending = false;
+
+                        if (exception != null) {
+                            Logger.getLogger(MapShapeHelper.class.getName()).log(Level.WARNING, exception.toString());
+
+                        } else if (isCurrentCoordinates(coordinates, count)) {
+                            significance = result;
+                            significanceCoordinates = coordinates;
+                            significanceAnchor = 0;
+                            referenceScale = 0d;
+                            updatePoints();
+
+                        } else if (isMapCoordinates && revision == mapCoordinateRevision && mapCoordinates != null
+                                && lineType == MapPolyline.LineType.STRAIGHT && significance == null
+                                && extendSignificance(result, 0, count)) {
+                            referenceScale = 0d;
+                            updatePoints(); // locations were appended during the calculation
+
+                        } else if (mapCoordinates != null && significance == null) {
+                            updatePoints(); // start calculation for the current coordinates
+                        }
+                    }));
+        }
+
+        return significance != null;
+    }
+
+    /**
+     * Sets the significance of the map coordinates from the significance of their first from points, which
+     * was calculated for points from index anchor, by calculating the significance of the appended points
+     * together with the points from the anchor, or from the previous last point when there would be more
+     * than maxIncrementalSimplificationCount points. Returns false when more than
+     * maxSynchronousSimplificationCount points were appended.
+     */
+    private boolean extendSignificance(double[] prefixSignificance, int anchor, int from) {
+        int to = mapCoordinateCount;
+
+        if (to - anchor > maxIncrementalSimplificationCount) {
+            anchor = from - 1;
+        }
+
+        if (from < 1 || to - anchor > maxSynchronousSimplificationCount) {
+            return false;
+        }
+
+        significance = Arrays.copyOf(prefixSignificance, to);
+        System.arraycopy(PolylineSimplifier.getSignificance(mapCoordinates, 2 * anchor, to - anchor), 0,
+                significance, anchor, to - anchor);
+        significanceCoordinates = mapCoordinates;
+        significanceAnchor = anchor;
+        return true;
+    }
+
+    /**
+     * Gets the densified map coordinates for the zoom bucket of the view scale, or of the nearest other zoom
+     * bucket while a background calculation is pending, or null when none are available.
+     */
+    private double[] getDensifiedCoordinates(double scale) {
+        int bucket = Math.getExponent(scale);
+        double[] densified = densifiedCoordinates.get(bucket);
+
+        if (densified == null && !densificationPending.contains(bucket)) {
+            MapPolyline.LineType type = lineType;
+            MapProjection mapProjection = projection;
+            Location center = projectionCenter;
+            double[] coordinates = mapCoordinates;
+            int count = mapCoordinateCount;
+            double tolerance = maxSegmentError / Math.scalb(1d, bucket + 1); // scale at the end of the bucket
+            double[] locationCoordinates = new double[2 * count];
+
+            copyLocations(0, count, locationCoordinates, longitudeOffset);
+
+            // the map changes the center of its azimuthal projection instance, hence a background calculation
+            // uses an instance with a fixed center, or is not possible when no such instance can be created
+            //
+            MapProjection backgroundProjection = count > maxSynchronousDensificationCount
+                    ? AzimuthalProjection.getBackgroundProjection(mapProjection) : null;
+
+            if (backgroundProjection == null) {
+                densified = LineDensifier.densify(type, mapProjection, locationCoordinates, coordinates, count, tolerance);
+                putDensifiedCoordinates(bucket, densified);
+
+            } else {
+                densificationPending.add(bucket);
+
+                CompletableFuture.supplyAsync(() -> LineDensifier.densify(type, backgroundProjection, locationCoordinates, coordinates, count, tolerance), backgroundExecutor)
+                        .whenComplete((result, exception) -> Platform.runLater(() -> {
+                            densificationPending.remove(bucket);
+
+                            if (exception != null) {
+                                Logger.getLogger(MapShapeHelper.class.getName()).log(Level.WARNING, exception.toString());
+
+                            } else if (coordinates == mapCoordinates && count == mapCoordinateCount
+                                    && type == lineType && mapProjection == projection
+                                    && Objects.equals(center, projectionCenter)) {
+                                putDensifiedCoordinates(bucket, result);
+                                referenceScale = 0d;
+                                updatePoints();
+
+                            } else if (mapCoordinates != null) {
+                                updatePoints(); // start calculation for the current coordinates
+                            }
+                        }));
+            }
+        }
+
+        if (densified == null) {
+            Integer nearest = densifiedCoordinates.ceilingKey(bucket);
+
+            if (nearest == null) {
+                nearest = densifiedCoordinates.floorKey(bucket);
+            }
+
+            densified = nearest != null ? densifiedCoordinates.get(nearest) : null;
+        }
+
+        return densified;
+    }
+
+    /**
+     * Caches densified coordinates and keeps at most maxDensifiedBuckets zoom buckets, by removing those
+     * most distant from bucket.
+     */
+    private void putDensifiedCoordinates(int bucket, double[] densified) {
+        densifiedCoordinates.put(bucket, densified);
+
+        while (densifiedCoordinates.size() > maxDensifiedBuckets) {
+            int first = densifiedCoordinates.firstKey();
+            int last = densifiedCoordinates.lastKey();
+            densifiedCoordinates.remove(bucket - first > last - bucket ? first : last);
+        }
+    }
+
+    private boolean isCurrentCoordinates(double[] coordinates, int count) {
+        return coordinates == mapCoordinates && count == mapCoordinateCount
+                || densifiedCoordinates.containsValue(coordinates);
+    }
+
+    private static List<Double> toList(double[] coordinates) {
+        List<Double> points = new ArrayList<>(coordinates.length);
+
+        for (double c : coordinates) {
+            points.add(c);
+        }
+
+        return points;
+    }
+
+    /**
+     * Gets the longitude offset that moves a shape with a location outside the viewport nearest to the
+     * map center.
+     */
+    static double getLongitudeOffset(MapBase map, Location location) {
+        double longitudeOffset = 0d;
+
+        if (location != null && map.getProjection().isNormalCylindrical()) {
+            Point2D viewportPosition = map.locationToView(location);
+
+            if (viewportPosition.getX() < 0d || viewportPosition.getX() > map.getWidth()
+                    || viewportPosition.getY() < 0d || viewportPosition.getY() > map.getHeight()) {
+
+                double nearestLongitude = Location.nearestLongitude(location.longitude(), map.getCenter().longitude());
+                longitudeOffset = nearestLongitude - location.longitude();
+            }
+        }
+
+        return longitudeOffset;
+    }
+}
@@ -6,12 +6,20 @@ package fxmapcontrol;
 
 import java.util.ArrayList;
 import java.util.List;
+import javafx.beans.value.ObservableValue;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
+import javafx.scene.Scene;
 import javafx.scene.image.ImageView;
+import javafx.stage.Window;
 
 /**
  * Displays web mercator map tiles.
+ * <p>
+ * Tile images are laid out in units of TILE_SIZE. The zoom level of the loaded tiles depends on the pixel size
+ * of the tile images and on the render scale of the window, so that fewer and larger tiles are loaded from
+ * TileSources with 512 pixel or high resolution tile images. The high resolution variant of a TileSource is
+ * requested when the render scale of the window is above 1.5, and all tiles are reloaded when this changes.
  */
 public class MapTileLayer extends MapTileLayerBase {
 
@@ -24,6 +32,9 @@ public class MapTileLayer extends MapTileLayerBase {
     private int maxZoomLevel = 18;
     private TileMatrix tileMatrix;
     private List<Tile> tiles = new ArrayList<>();
+    private boolean hiDpi; // per layer, since the TileSource may be shared
+    private final ObservableValue<Number> renderScale
+            = sceneProperty().flatMap(Scene::windowProperty).flatMap(Window::renderScaleXProperty);
 
     public static MapTileLayer getOpenStreetMapLayer() {
         return new MapTileLayer("OpenStreetMap", "http://tile.openstreetmap.org/{z}/{x}/{y}.png", 0, 19);
@@ -32,7 +43,12 @@ public class MapTileLayer extends MapTileLayerBase {
     public MapTileLayer(ITileImageLoader tileImageLoader) {
         super(tileImageLoader);
         getStyleClass().add("map-tile-layer");
-        tileSourceProperty().addListener((observable, oldValue, newValue) -> updateTiles(true));
+        tileSourceProperty().addListener((observable, oldValue, newValue) -> {
+            tiles.clear();
+            tileMatrix = null; // tile matrix zoom level depends on the tile image size of the TileSource
+            updateTileLayer();
+        });
+        renderScale.addListener((observable, oldValue, newValue) -> updateTileLayer());
     }
 
     public MapTileLayer() {
@@ -51,6 +67,11 @@ public class MapTileLayer extends MapTileLayerBase {
         setMaxZoomLevel(maxZoomLevel);
     }
 
+    public MapTileLayer(String name, String tileUrlFormat, int tileSize, int minZoomLevel, int maxZoomLevel) {
+        this(name, tileUrlFormat, minZoomLevel, maxZoomLevel);
+        getTileSource().setTileSize(tileSize);
+    }
+
     public final int getMinZoomLevel() {
         return minZoomLevel;
     }
@@ -74,28 +95,30 @@ public class MapTileLayer extends MapTileLayerBase {
         if (getMap() == null || !getMap().getProjection().isWebMercator()) {
             tileMatrix = null;
             updateTiles(true);
-        } else if (setTileMatrix()) {
-            setTransform();
-            updateTiles(false);
+        } else {
+            boolean hiDpiChanged = updateHiDpi();
+
+            if (setTileMatrix() || hiDpiChanged) {
+                setTransform();
+                updateTiles(hiDpiChanged); // reload all tiles when the tile image resolution has changed
+            }
         }
     }
 
     @Override
     protected void setTransform() {
-        // tile matrix origin in pixels
-        //
-        Point2D tileMatrixOrigin = new Point2D(TILE_SIZE * tileMatrix.xMin(), TILE_SIZE * tileMatrix.yMin());
-
         double tileMatrixScale = ViewTransform.zoomLevelToScale(tileMatrix.zoomLevel());
 
-        getTransforms().set(0,
-                getMap().getViewTransform().getTileLayerTransform(tileMatrixScale, MAP_TOP_LEFT, tileMatrixOrigin));
+        // tile matrix origin in pixels
+        //
+        getMap().getViewTransform().setTileLayerTransform(getTileLayerTransform(), tileMatrixScale, MAP_TOP_LEFT,
+                TILE_SIZE * tileMatrix.xMin(), TILE_SIZE * tileMatrix.yMin());
     }
 
     private boolean setTileMatrix() {
         MapBase map = getMap();
 
-        int tileMatrixZoomLevel = (int) Math.floor(map.getZoomLevel() + 0.001); // avoid rounding issues
+        int tileMatrixZoomLevel = Math.max((int) Math.floor(getTileZoomLevel() + getZoomLevelOffset() + 0.001), 0); // avoid rounding issues
         double tileMatrixScale = ViewTransform.zoomLevelToScale(tileMatrixZoomLevel);
 
         // bounds in tile pixels from view size
@@ -122,6 +145,53 @@ public class MapTileLayer extends MapTileLayerBase {
         return true;
     }
 
+    /**
+     * Gets the offset from the map zoom level to the zoom level of the tile matrix, e.g. -1 for 512 pixel
+     * tile images in a window with a render scale of 1. The offset is never positive, i.e. the number of
+     * tiles is never larger than that of 256 pixel tiles.
+     */
+    private double getZoomLevelOffset() {
+        TileSource tileSource = getTileSource();
+
+        return tileSource != null
+                ? Math.min(Math.log(TILE_SIZE * getRenderScale() / tileSource.getImageSize(hiDpi)) / Math.log(2d), 0d)
+                : 0d;
+    }
+
+    private double getRenderScale() {
+        Number scale = renderScale.getValue();
+
+        return scale != null ? scale.doubleValue() : 1d;
+    }
+
+    private boolean updateHiDpi() {
+        TileSource tileSource = getTileSource();
+        boolean newHiDpi = tileSource != null && tileSource.hasHiDpiVariant() && getRenderScale() > 1.5;
+
+        if (hiDpi != newHiDpi) {
+            hiDpi = newHiDpi;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the name that identifies the tiles of the current TileSource in the tile cache, or null if
+     * the tiles should not be cached.
+     */
+    protected String getTileSourceName() {
+        TileSource tileSource = getTileSource();
+        String sourceName = getName();
+
+        if (sourceName != null && !sourceName.isEmpty()
+                && tileSource != null && hiDpi && tileSource.hasHiDpiVariant()) {
+            sourceName += "@2x";
+        }
+
+        return sourceName;
+    }
+
     private void updateTiles(boolean clearTiles) {
         if (clearTiles) {
             tiles.clear();
@@ -196,6 +266,6 @@ public class MapTileLayer extends MapTileLayerBase {
                     .toList());
         }
 
-        getTileImageLoader().loadTiles(tiles, getTileSource(), getName());
+        getTileImageLoader().loadTiles(tiles, getTileSource(), getTileSourceName(), hiDpi);
     }
 }
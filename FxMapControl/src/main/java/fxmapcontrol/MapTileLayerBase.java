@@ -47,15 +47,17 @@ public abstract class MapTileLayerBase extends Parent implements IMapNode {
     private final ObjectProperty<TileSource> tileSourceProperty = new SimpleObjectProperty<>(this, "tileSource");
 
     private final ITileImageLoader tileImageLoader;
+    private final Affine tileLayerTransform = new Affine();
     private final Timeline updateTimeline = new Timeline();
     private final MapNodeHelper mapNodeHelper = new MapNodeHelper(e -> onViewportChanged(e.getProjectionChanged(), e.getLongitudeOffset()));
 
     private int maxBackgroundLevels = 8;
     private String name;
+    private boolean zoomLevelAnimationUpdatePending;
 
     protected MapTileLayerBase(ITileImageLoader tileImageLoader) {
         getStyleClass().add("map-tile-layer-base");
-        getTransforms().add(new Affine());
+        getTransforms().add(tileLayerTransform);
         setMouseTransparent(true);
 
         this.tileImageLoader = tileImageLoader;
@@ -126,6 +128,14 @@ public abstract class MapTileLayerBase extends Parent implements IMapNode {
         return tileImageLoader;
     }
 
+    /**
+     * Gets the Affine that transforms the tile layer to view coordinates. It is modified in place by
+     * setTransform() implementations, to avoid allocations and scene graph updates while the viewport changes.
+     */
+    protected final Affine getTileLayerTransform() {
+        return tileLayerTransform;
+    }
+
     public final Timeline getUpdateTimeline() {
         return updateTimeline;
     }
@@ -154,7 +164,18 @@ public abstract class MapTileLayerBase extends Parent implements IMapNode {
         } else {
             setTransform();
 
-            if (getUpdateWhileViewportChanging()) {
+            if (getMap().isZoomLevelAnimationRunning()) {
+                // keep the current tiles scaled while the zoom animation is running, instead of
+                // loading tiles for intermediate zoom levels that are only visible for a few frames
+                updateTimeline.stop();
+                zoomLevelAnimationUpdatePending = true;
+
+            } else if (zoomLevelAnimationUpdatePending) {
+                // zoom animation has finished, load tiles of the target zoom level immediately
+                zoomLevelAnimationUpdatePending = false;
+                updateTileLayer();
+
+            } else if (getUpdateWhileViewportChanging()) {
                 updateTimeline.play();
             } else {
                 updateTimeline.playFromStart();
@@ -162,6 +183,16 @@ public abstract class MapTileLayerBase extends Parent implements IMapNode {
         }
     }
 
+    /**
+     * Gets the zoom level for which tiles are loaded. While a zoom animation is running, this is the
+     * target zoom level of the animation, otherwise the current zoom level of the map.
+     */
+    protected final double getTileZoomLevel() {
+        MapBase map = getMap();
+
+        return map.isZoomLevelAnimationRunning() ? map.getTargetZoomLevel() : map.getZoomLevel();
+    }
+
     protected abstract void updateTileLayer();
 
     protected abstract void setTransform();
@@ -0,0 +1,66 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ITileCache implementation that keeps a limited number of recently used items in memory. Items that are
+ * not found in memory are read from an optional next ITileCache, e.g. an ImageFileCache, which also
+ * receives all items that are set.
+ */
+public class MemoryTileCache implements ITileCache {
+
+    private final Map<String, CacheItem> items;
+    private final ITileCache nextCache;
+
+    public MemoryTileCache(int maxItems) {
+        this(maxItems, null);
+    }
+
+    public MemoryTileCache(int maxItems, ITileCache nextCache) {
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("maxItems must be greater than zero");
+        }
+
+        this.items = new LinkedHashMap<>(16, 0.75f, true) { // access order, i.e. least recently used first
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheItem> eldest) {
+                return size() > maxItems;
+            }
+        };
+
+        this.nextCache = nextCache;
+    }
+
+    @Override
+    public CacheItem get(String key) {
+        CacheItem cacheItem;
+
+        synchronized (items) {
+            cacheItem = items.get(key);
+        }
+
+        if (cacheItem == null && nextCache != null && (cacheItem = nextCache.get(key)) != null) {
+            synchronized (items) {
+                items.put(key, cacheItem);
+            }
+        }
+
+        return cacheItem;
+    }
+
+    @Override
+    public void set(String key, byte[] buffer, long expiration) {
+        synchronized (items) {
+            items.put(key, new CacheItem(buffer, expiration));
+        }
+
+        if (nextCache != null) {
+            nextCache.set(key, buffer, expiration);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.util.Arrays;
+import java.util.Collection;
+import javafx.collections.ObservableArrayBase;
+
+/**
+ * Compact observable array of geographic locations, stored as interleaved latitude and longitude values in
+ * a single double[], i.e. 16 bytes per location. Indices and sizes are given in locations. Changes are
+ * reported to ArrayChangeListeners with the changed range of location indices. Removal of locations is
+ * reported as a size change with an empty range at the index of the first removed location.
+ * <p>
+ * May be used instead of an ObservableList of Location records for shapes with many vertices.
+ */
+public class ObservableLocationArray extends ObservableArrayBase<ObservableLocationArray> {
+
+    private static final double[] emptyArray = new double[0];
+
+    private double[] values = emptyArray;
+    private int size;
+
+    public ObservableLocationArray() {
+    }
+
+    /**
+     * Creates an ObservableLocationArray with interleaved latitude and longitude values.
+     */
+    public ObservableLocationArray(double... latitudesLongitudes) {
+        setAll(latitudesLongitudes);
+    }
+
+    public ObservableLocationArray(Collection<Location> locations) {
+        addAll(locations);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void resize(int size) {
+        if (size < 0) {
+            throw new NegativeArraySizeException(Integer.toString(size));
+        }
+
+        ensureCapacity(size);
+        int oldSize = this.size;
+
+        if (size != oldSize) {
+            Arrays.fill(values, 2 * Math.min(size, oldSize), 2 * Math.max(size, oldSize), 0d);
+            this.size = size;
+            fireChange(true, Math.min(size, oldSize), size);
+        }
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (2 * capacity > values.length) {
+            values = Arrays.copyOf(values, 2 * Math.max(capacity, 3 * (values.length / 2) / 2));
+        }
+    }
+
+    @Override
+    public void trimToSize() {
+        if (values.length != 2 * size) {
+            values = Arrays.copyOf(values, 2 * size);
+        }
+    }
+
+    @Override
+    public void clear() {
+        resize(0);
+    }
+
+    public double getLatitude(int index) {
+        checkIndex(index);
+        return values[2 * index];
+    }
+
+    public double getLongitude(int index) {
+        checkIndex(index);
+        return values[2 * index + 1];
+    }
+
+    /**
+     * Gets a new Location with the values at the specified index.
+     */
+    public Location get(int index) {
+        checkIndex(index);
+        return new Location(values[2 * index], values[2 * index + 1]);
+    }
+
+    public void set(int index, double latitude, double longitude) {
+        checkIndex(index);
+        values[2 * index] = latitude;
+        values[2 * index + 1] = longitude;
+        fireChange(false, index, index + 1);
+    }
+
+    public void set(int index, Location location) {
+        set(index, location.latitude(), location.longitude());
+    }
+
+    public void add(double latitude, double longitude) {
+        ensureCapacity(size + 1);
+        values[2 * size] = latitude;
+        values[2 * size + 1] = longitude;
+        size++;
+        fireChange(true, size - 1, size);
+    }
+
+    public void add(Location location) {
+        add(location.latitude(), location.longitude());
+    }
+
+    /**
+     * Appends interleaved latitude and longitude values.
+     */
+    public void addAll(double... latitudesLongitudes) {
+        int count = getLocationCount(latitudesLongitudes);
+
+        if (count > 0) {
+            ensureCapacity(size + count);
+            System.arraycopy(latitudesLongitudes, 0, values, 2 * size, 2 * count);
+            size += count;
+            fireChange(true, size - count, size);
+        }
+    }
+
+    public void addAll(Collection<Location> locations) {
+        int count = locations.size();
+
+        if (count > 0) {
+            ensureCapacity(size + count);
+            int i = 2 * size;
+
+            for (Location location : locations) {
+                values[i++] = location.latitude();
+                values[i++] = location.longitude();
+            }
+
+            size += count;
+            fireChange(true, size - count, size);
+        }
+    }
+
+    /**
+     * Replaces all values by interleaved latitude and longitude values.
+     */
+    public void setAll(double... latitudesLongitudes) {
+        int count = getLocationCount(latitudesLongitudes);
+        boolean sizeChanged = count != size;
+
+        ensureCapacity(count);
+        System.arraycopy(latitudesLongitudes, 0, values, 0, 2 * count);
+        size = count;
+        fireChange(sizeChanged, 0, size);
+    }
+
+    /**
+     * Removes the locations from index from (inclusive) to index to (exclusive).
+     */
+    public void remove(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new ArrayIndexOutOfBoundsException("Invalid range " + from + ".." + to + " for size " + size);
+        }
+
+        if (from < to) {
+            System.arraycopy(values, 2 * to, values, 2 * from, 2 * (size - to));
+            size -= to - from;
+            fireChange(true, from, from);
+        }
+    }
+
+    /**
+     * Copies count locations as interleaved latitude and longitude values, starting at srcIndex, to dest
+     * starting at destOffset.
+     */
+    public void copyTo(int srcIndex, double[] dest, int destOffset, int count) {
+        if (srcIndex < 0 || count < 0 || srcIndex + count > size) {
+            throw new ArrayIndexOutOfBoundsException("Invalid range " + srcIndex + ".." + (srcIndex + count) + " for size " + size);
+        }
+
+        System.arraycopy(values, 2 * srcIndex, dest, destOffset, 2 * count);
+    }
+
+    /**
+     * Gets a new array with the interleaved latitude and longitude values.
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(values, 2 * size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(values[2 * i]).append(',').append(values[2 * i + 1]);
+        }
+
+        return builder.append(']').toString();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    private static int getLocationCount(double[] latitudesLongitudes) {
+        if (latitudesLongitudes.length % 2 != 0) {
+            throw new IllegalArgumentException("The number of latitude and longitude values must be even.");
+        }
+
+        return latitudesLongitudes.length / 2;
+    }
+}
@@ -20,47 +20,37 @@ public class OrthographicProjection extends AzimuthalProjection {
     }
 
     @Override
-    public Point2D locationToMap(Location location) {
-        if (location.equals(getCenter())) {
-            return new Point2D(0d, 0d);
-        }
-
-        double lat0 = getCenter().latitude() * Math.PI / 180d;
-        double lat = location.latitude() * Math.PI / 180d;
-        double dLon = (location.longitude() - getCenter().longitude()) * Math.PI / 180d;
+    public AzimuthalProjection withCenter(Location center) {
+        OrthographicProjection projection = new OrthographicProjection(getCrsId());
+        projection.setCenter(center);
+        return projection;
+    }
 
-        return new Point2D(
-                WGS84_EQUATORIAL_RADIUS * Math.cos(lat) * Math.sin(dLon),
-                WGS84_EQUATORIAL_RADIUS * (Math.cos(lat0) * Math.sin(lat) - Math.sin(lat0) * Math.cos(lat) * Math.cos(dLon)));
+    @Override
+    public Point2D locationToMap(Location location) {
+        return locationToMap(location, OrthographicProjection::mapDistance);
     }
 
     @Override
     public Location mapToLocation(Point2D point) {
-        double x = point.getX();
-        double y = point.getY();
-
-        if (x == 0d && y == 0d) {
-            return new Location(getCenter().latitude(), getCenter().longitude());
-        }
-
-        x /= WGS84_EQUATORIAL_RADIUS;
-        y /= WGS84_EQUATORIAL_RADIUS;
-        double r2 = x * x + y * y;
+        return mapToLocation(point, OrthographicProjection::distance);
+    }
 
-        if (r2 > 1d) {
-            return new Location(Double.NaN, Double.NaN);
-        }
+    @Override
+    public void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        locationToMap(src, srcOffset, dst, dstOffset, count, OrthographicProjection::mapDistance);
+    }
 
-        double r = Math.sqrt(r2);
-        double sinC = r;
-        double cosC = Math.sqrt(1 - r2);
+    @Override
+    public void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        mapToLocation(src, srcOffset, dst, dstOffset, count, OrthographicProjection::distance);
+    }
 
-        double lat0 = getCenter().latitude() * Math.PI / 180d;
-        double cosLat0 = Math.cos(lat0);
-        double sinLat0 = Math.sin(lat0);
+    private static double mapDistance(double distance) {
+        return WGS84_EQUATORIAL_RADIUS * Math.sin(distance);
+    }
 
-        return new Location(
-                180d / Math.PI * Math.asin(cosC * sinLat0 + y * sinC * cosLat0 / r),
-                180d / Math.PI * Math.atan2(x * sinC, r * cosC * cosLat0 - y * sinC * sinLat0) + getCenter().longitude());
+    private static double distance(double mapDistance) {
+        return mapDistance <= WGS84_EQUATORIAL_RADIUS ? Math.asin(mapDistance / WGS84_EQUATORIAL_RADIUS) : Double.NaN;
     }
 }
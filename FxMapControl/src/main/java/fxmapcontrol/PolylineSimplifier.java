@@ -0,0 +1,115 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+/**
+ * Douglas-Peucker polyline simplification. Instead of simplifying for a single tolerance, getSignificance
+ * calculates for each vertex the largest tolerance at which the Douglas-Peucker algorithm would keep it, so
+ * that the simplification for any tolerance is obtained by selecting the vertices with a significance that
+ * is greater than or equal to the tolerance.
+ */
+final class PolylineSimplifier {
+
+    private PolylineSimplifier() {
+    }
+
+    /**
+     * Calculates the significance of count points, given as interleaved x and y values in coordinates
+     * starting at offset. The first and last point have infinite significance.
+     */
+    static double[] getSignificance(double[] coordinates, int offset, int count) {
+        double[] significance = new double[count];
+
+        if (count == 0) {
+            return significance;
+        }
+
+        significance[0] = Double.POSITIVE_INFINITY;
+        significance[count - 1] = Double.POSITIVE_INFINITY;
+
+        // explicit stack of segments, since recursion depth may be as large as count
+        //
+        int[] firstIndices = new int[count];
+        int[] lastIndices = new int[count];
+        double[] parentSignificances = new double[count];
+        int stackSize = 0;
+
+        if (count > 2) {
+            firstIndices[0] = 0;
+            lastIndices[0] = count - 1;
+            parentSignificances[0] = Double.POSITIVE_INFINITY;
+            stackSize = 1;
+        }
+
+        while (stackSize > 0) {
+            stackSize--;
+            int first = firstIndices[stackSize];
+            int last = lastIndices[stackSize];
+            double parentSignificance = parentSignificances[stackSize];
+
+            double ax = coordinates[offset + 2 * first];
+            double ay = coordinates[offset + 2 * first + 1];
+            double dx = coordinates[offset + 2 * last] - ax;
+            double dy = coordinates[offset + 2 * last + 1] - ay;
+            double length2 = dx * dx + dy * dy;
+            double maxDistance2 = -1d;
+            int maxIndex = first + 1;
+
+            for (int i = first + 1; i < last; i++) {
+                double px = coordinates[offset + 2 * i] - ax;
+                double py = coordinates[offset + 2 * i + 1] - ay;
+
+                if (length2 > 0d) {
+                    double t = Math.min(Math.max((px * dx + py * dy) / length2, 0d), 1d);
+                    px -= t * dx;
+                    py -= t * dy;
+                }
+
+                double distance2 = px * px + py * py;
+
+                if (distance2 > maxDistance2) {
+                    maxDistance2 = distance2;
+                    maxIndex = i;
+                }
+            }
+
+            // a vertex is never more significant than the vertex that split its parent segment
+            //
+            double s = Math.min(Math.sqrt(maxDistance2), parentSignificance);
+            significance[maxIndex] = s;
+
+            if (maxIndex - first > 1) {
+                firstIndices[stackSize] = first;
+                lastIndices[stackSize] = maxIndex;
+                parentSignificances[stackSize] = s;
+                stackSize++;
+            }
+
+            if (last - maxIndex > 1) {
+                firstIndices[stackSize] = maxIndex;
+                lastIndices[stackSize] = last;
+                parentSignificances[stackSize] = s;
+                stackSize++;
+            }
+        }
+
+        return significance;
+    }
+
+    /**
+     * Gets the number of points with a significance greater than or equal to minSignificance.
+     */
+    static int getSignificantCount(double[] significance, double minSignificance) {
+        int count = 0;
+
+        for (double s : significance) {
+            if (s >= minSignificance) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import javafx.geometry.Point2D;
+import javafx.scene.transform.Affine;
+
+/**
+ * Combines a MapProjection with the coefficients of an affine map-to-view transform, i.e. transforms geographic
+ * coordinates directly to view coordinates. MapBase creates a new instance on each viewport change, so that
+ * an instance obtained by MapBase.getProjectionViewTransform() is consistent for a whole update pass.
+ * <p>
+ * Note that the MapProjection itself is not copied, so that an instance is only valid until the next viewport
+ * change when the projection is azimuthal, i.e. depends on the projection center.
+ */
+public record ProjectionViewTransform(
+        MapProjection projection,
+        double mxx, double mxy, double myx, double myy, double tx, double ty) {
+
+    public ProjectionViewTransform(MapProjection projection, Affine mapToViewTransform) {
+        this(projection,
+                mapToViewTransform.getMxx(), mapToViewTransform.getMxy(),
+                mapToViewTransform.getMyx(), mapToViewTransform.getMyy(),
+                mapToViewTransform.getTx(), mapToViewTransform.getTy());
+    }
+
+    public Point2D mapToView(double x, double y) {
+        return new Point2D(mxx * x + mxy * y + tx, myx * x + myy * y + ty);
+    }
+
+    public Point2D locationToView(Location location) {
+        Point2D point = projection.locationToMap(location);
+
+        return mapToView(point.getX(), point.getY());
+    }
+
+    /**
+     * Transforms count geographic coordinates, given as interleaved latitude and longitude values in src
+     * starting at srcOffset, to view coordinates, written as interleaved x and y values to dst starting at
+     * dstOffset. src and dst may be the same array with the same offset.
+     */
+    public void locationToView(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        projection.locationToMap(src, srcOffset, dst, dstOffset, count);
+        mapToView(dst, dstOffset, count);
+    }
+
+    /**
+     * Transforms count points, given as interleaved x and y values in points starting at offset, from map
+     * coordinates to view coordinates in place.
+     */
+    public void mapToView(double[] points, int offset, int count) {
+        for (int i = offset; i < offset + 2 * count; i += 2) {
+            double x = points[i];
+            double y = points[i + 1];
+            points[i] = mxx * x + mxy * y + tx;
+            points[i + 1] = myx * x + myy * y + ty;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.util.Arrays;
+
+/**
+ * Sutherland-Hodgman clipping of polygons and polylines against a rectangle.
+ * <p>
+ * A polyline is clipped like a polygon without its closing edge. Parts of a shape that leave and re-enter
+ * the rectangle are connected by segments on the rectangle's boundary, so that a clipped polyline remains a
+ * single polyline. When the rectangle is a viewport enlarged by a margin that is larger than the stroke
+ * width, these connecting segments are not visible.
+ */
+final class ShapeClipper {
+
+    private double[] buffer;
+    private int size;
+
+    private ShapeClipper(int capacity) {
+        buffer = new double[capacity];
+    }
+
+    /**
+     * Clips count points, given as interleaved x and y values in points, against the rectangle given by
+     * minX, minY, maxX and maxY. Returns the points array itself when all points are inside the rectangle,
+     * otherwise a new array with the interleaved x and y values of the clipped shape.
+     */
+    static double[] clip(double[] points, int count, boolean closed,
+            double minX, double minY, double maxX, double maxY) {
+
+        boolean inside = true;
+
+        for (int i = 0; inside && i < 2 * count; i += 2) {
+            double x = points[i];
+            double y = points[i + 1];
+            inside = x >= minX && x <= maxX && y >= minY && y <= maxY;
+        }
+
+        if (inside) {
+            return points;
+        }
+
+        ShapeClipper clipper = new ShapeClipper(2 * count + 8);
+        ShapeClipper output = new ShapeClipper(2 * count + 8);
+
+        System.arraycopy(points, 0, clipper.buffer, 0, 2 * count);
+        clipper.size = 2 * count;
+
+        for (int edge = 0; edge < 4 && clipper.size > 0; edge++) {
+            double value = switch (edge) {
+                case 0 -> minX;
+                case 1 -> maxX;
+                case 2 -> minY;
+                default -> maxY;
+            };
+
+            output.size = 0;
+            output.clipEdge(clipper.buffer, clipper.size / 2, closed, edge, value);
+
+            ShapeClipper swap = clipper;
+            clipper = output;
+            output = swap;
+        }
+
+        return Arrays.copyOf(clipper.buffer, clipper.size);
+    }
+
+    /**
+     * Clips against a single edge, i.e. against the half-plane x >= value (edge 0), x <= value (edge 1),
+     * y >= value (edge 2) or y <= value (edge 3), and appends the result to this instance.
+     */
+    private void clipEdge(double[] points, int count, boolean closed, int edge, double value) {
+        int start = closed ? 0 : 1;
+        double x0 = points[closed ? 2 * count - 2 : 0];
+        double y0 = points[closed ? 2 * count - 1 : 1];
+        boolean inside0 = isInside(x0, y0, edge, value);
+
+        if (!closed && inside0) {
+            add(x0, y0);
+        }
+
+        for (int i = start; i < count; i++) {
+            double x1 = points[2 * i];
+            double y1 = points[2 * i + 1];
+            boolean inside1 = isInside(x1, y1, edge, value);
+
+            if (inside0 != inside1) {
+                double t = edge < 2
+                        ? (value - x0) / (x1 - x0)
+                        : (value - y0) / (y1 - y0);
+
+                if (edge < 2) {
+                    add(value, y0 + t * (y1 - y0));
+                } else {
+                    add(x0 + t * (x1 - x0), value);
+                }
+            }
+
+            if (inside1) {
+                add(x1, y1);
+            }
+
+            x0 = x1;
+            y0 = y1;
+            inside0 = inside1;
+        }
+    }
+
+    private static boolean isInside(double x, double y, int edge, double value) {
+        return switch (edge) {
+            case 0 -> x >= value;
+            case 1 -> x <= value;
+            case 2 -> y >= value;
+            default -> y <= value;
+        };
+    }
+
+    private void add(double x, double y) {
+        if (size + 2 > buffer.length) {
+            buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        }
+
+        buffer[size++] = x;
+        buffer[size++] = y;
+    }
+}
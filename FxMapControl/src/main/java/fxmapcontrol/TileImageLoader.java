@@ -44,6 +44,10 @@ public class TileImageLoader implements ITileImageLoader {
 
     private static ITileCache tileCache;
 
+    public static ITileCache getCache() {
+        return tileCache;
+    }
+
     public static void setCache(ITileCache cache) {
         tileCache = cache;
     }
@@ -52,6 +56,9 @@ public class TileImageLoader implements ITileImageLoader {
     private final Set<LoadImageService> services = new HashSet<>();
     private final int maxLoadTasks;
     private final int httpTimeout;
+    private TileSource queueTileSource; // parameters of the tiles in tileQueue
+    private String queueTileSourceName;
+    private boolean queueHiDpi;
 
     public TileImageLoader() {
         this(defaultMaxTasks, defaultHttpTimeout);
@@ -64,8 +71,16 @@ public class TileImageLoader implements ITileImageLoader {
 
     @Override
     public void loadTiles(Collection<Tile> tiles, TileSource tileSource, String tileSourceName) {
+        loadTiles(tiles, tileSource, tileSourceName, false);
+    }
+
+    @Override
+    public void loadTiles(Collection<Tile> tiles, TileSource tileSource, String tileSourceName, boolean hiDpi) {
         tiles = tiles.stream().filter(tile -> tile.isPending()).toList();
         tileQueue.clear();
+        queueTileSource = tileSource;
+        queueTileSourceName = tileSourceName;
+        queueHiDpi = hiDpi;
 
         if (tileSource != null && !tiles.isEmpty()) {
             tileQueue.addAll(tiles);
@@ -73,20 +88,19 @@ public class TileImageLoader implements ITileImageLoader {
             int numServices = Math.min(tiles.size(), maxLoadTasks);
 
             while (services.size() < numServices) {
-                services.add(new LoadImageService(tileSource, tileSourceName));
+                services.add(new LoadImageService());
             }
         }
     }
 
     private class LoadImageService extends Service<Image> {
 
-        private final TileSource tileSource;
-        private final String tileSourceName;
         private Tile tile;
+        private TileSource tileSource;
+        private String tileSourceName;
+        private boolean hiDpi; // matches the "@2x" suffix of tileSourceName
 
-        public LoadImageService(TileSource tileSource, String tileSourceName) {
-            this.tileSource = tileSource;
-            this.tileSourceName = tileSourceName;
+        public LoadImageService() {
             setExecutor(serviceExecutor);
             nextTile();
         }
@@ -115,6 +129,10 @@ public class TileImageLoader implements ITileImageLoader {
         private void nextTile() {
             tile = tileQueue.poll();
             if (tile != null) {
+                // a running service may take tiles of a later loadTiles call
+                tileSource = queueTileSource;
+                tileSourceName = queueTileSourceName;
+                hiDpi = queueHiDpi;
                 restart();
             } else {
                 services.remove(this);
@@ -129,7 +147,7 @@ public class TileImageLoader implements ITileImageLoader {
                     || tileSourceName.isEmpty()
                     || !tileSource.getUrlFormat().startsWith("http")) {
 
-                image = tileSource.getImage(tile.getCoords(), false);
+                image = tileSource.getImage(tile.getCoords(), false, hiDpi);
             } else {
                 image = loadCachedImage();
             }
@@ -141,7 +159,7 @@ public class TileImageLoader implements ITileImageLoader {
             Image image = null;
             String cacheKey = null;
             CacheItem cacheItem = null;
-            URL tileUrl = new URL(tileSource.getUrl(tile.getCoords()));
+            URL tileUrl = new URL(tileSource.getUrl(tile.getCoords(), hiDpi));
 
             try {
                 String fileName = Paths.get(tileUrl.getPath()).getFileName().toString();
@@ -221,7 +239,7 @@ public class TileImageLoader implements ITileImageLoader {
         return tileInfo == null || !tileInfo.contains("no-tile");
     }
 
-    private static long getCacheExpiration(HttpURLConnection connection) {
+    static long getCacheExpiration(HttpURLConnection connection) {
         int expiration = defaultCacheExpiration;
         String cacheControl = connection.getHeaderField("cache-control");
 
@@ -9,6 +9,11 @@ import javafx.scene.image.Image;
 
 /**
  * Provides the URL of a map tile.
+ * <p>
+ * The tileSize property specifies the pixel size of the tile images. A URL format may contain a {r}
+ * placeholder, which is replaced by "@2x" when high resolution tile images are requested, and by an empty
+ * string otherwise. Whether high resolution images are requested is decided per request, since a TileSource
+ * may be shared by map layers in windows with different render scales.
  */
 public class TileSource {
 
@@ -19,6 +24,7 @@ public class TileSource {
 
     private UrlFormatter urlFormatter;
     private String urlFormat = "";
+    private int tileSize = 256;
 
     public TileSource() {
     }
@@ -27,6 +33,11 @@ public class TileSource {
         setUrlFormat(urlFormat);
     }
 
+    public TileSource(String urlFormat, int tileSize) {
+        setUrlFormat(urlFormat);
+        setTileSize(tileSize);
+    }
+
     public static TileSource valueOf(String urlFormat) {
         return new TileSource(urlFormat);
     }
@@ -63,6 +74,39 @@ public class TileSource {
         this.urlFormat = urlFormat;
     }
 
+    /**
+     * Gets the pixel size of the (not high resolution) tile images.
+     */
+    public final int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Sets the pixel size of the (not high resolution) tile images.
+     */
+    public final void setTileSize(int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("tileSize must be greater than zero");
+        }
+
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Indicates if the URL format contains a {r} placeholder for high resolution tile images.
+     */
+    public final boolean hasHiDpiVariant() {
+        return urlFormat.contains("{r}");
+    }
+
+    /**
+     * Gets the pixel size of the requested tile images, i.e. twice the tileSize when hiDpi is true and the
+     * URL format has a high resolution variant.
+     */
+    public final int getImageSize(boolean hiDpi) {
+        return hiDpi && hasHiDpiVariant() ? 2 * tileSize : tileSize;
+    }
+
     protected String getUrl(int x, int y, int zoomLevel) {
         return urlFormatter != null
                 ? urlFormatter.getUrl(x, y, zoomLevel)
@@ -70,11 +114,26 @@ public class TileSource {
     }
 
     public String getUrl(TileCoords tileCoords) {
-        return getUrl(tileCoords.xIndex(), tileCoords.y(), tileCoords.zoomLevel());
+        return getUrl(tileCoords, false);
+    }
+
+    /**
+     * Gets the URL of a tile image, of the high resolution variant when hiDpi is true.
+     */
+    public String getUrl(TileCoords tileCoords, boolean hiDpi) {
+        String url = getUrl(tileCoords.xIndex(), tileCoords.y(), tileCoords.zoomLevel());
+
+        return url != null && url.contains("{r}")
+                ? url.replace("{r}", hiDpi ? "@2x" : "")
+                : url;
     }
       
     public Image getImage(TileCoords tileCoords, boolean backgroundLoading) {
-      String url = getUrl(tileCoords);  
+      return getImage(tileCoords, backgroundLoading, false);
+    }
+
+    public Image getImage(TileCoords tileCoords, boolean backgroundLoading, boolean hiDpi) {
+      String url = getUrl(tileCoords, hiDpi);  
       return url != null ? new Image(url, backgroundLoading) : null;
     }
 
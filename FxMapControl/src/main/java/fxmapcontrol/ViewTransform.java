@@ -4,7 +4,6 @@ import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.transform.Affine;
-import javafx.scene.transform.NonInvertibleTransformException;
 
 /**
  * Transforms between cartesian map coordinates and view coordinates, i.e. pixels.
@@ -56,42 +55,71 @@ public class ViewTransform {
         this.scale = scale;
         this.rotation = rotation;
 
-        Affine transform = new Affine();
-        transform.prependTranslation(-mapCenter.getX(), -mapCenter.getY());
-        transform.prependScale(scale, -scale);
-        transform.prependRotation(rotation);
-        transform.prependTranslation(viewCenter.getX(), viewCenter.getY());
-        mapToViewTransform.setToTransform(transform);
-
-        try {
-            transform.invert();
-        } catch (NonInvertibleTransformException ex) {
-            throw new RuntimeException(ex); // this will never happen
-        }
+        // equivalent to prependTranslation(-mapCenter), prependScale(scale, -scale), prependRotation(rotation)
+        // and prependTranslation(viewCenter) on an identity Affine, without allocating intermediate transforms
+        //
+        double rad = Math.toRadians(rotation);
+        double cos = Math.cos(rad);
+        double sin = Math.sin(rad);
+        double mxx = scale * cos;
+        double mxy = scale * sin;
+        double myx = scale * sin;
+        double myy = -scale * cos;
+        double tx = viewCenter.getX() - mxx * mapCenter.getX() - mxy * mapCenter.getY();
+        double ty = viewCenter.getY() - myx * mapCenter.getX() - myy * mapCenter.getY();
+
+        mapToViewTransform.setToTransform(mxx, mxy, tx, myx, myy, ty);
+
+        // the inverse of the linear part is [cos, sin; sin, -cos] / scale
+        //
+        double ixx = cos / scale;
+        double ixy = sin / scale;
+        double iyx = sin / scale;
+        double iyy = -cos / scale;
 
-        viewToMapTransform.setToTransform(transform);
+        viewToMapTransform.setToTransform(ixx, ixy, -ixx * tx - ixy * ty, iyx, iyy, -iyx * tx - iyy * ty);
     }
 
     public final Affine getTileLayerTransform(double tileMatrixScale, Point2D tileMatrixTopLeft, Point2D tileMatrixOrigin) {
         Affine transform = new Affine();
-        double transformScale = scale / tileMatrixScale;
 
-        transform.prependScale(transformScale, transformScale);
-        transform.prependRotation(rotation);
+        setTileLayerTransform(transform, tileMatrixScale, tileMatrixTopLeft, tileMatrixOrigin.getX(), tileMatrixOrigin.getY());
+
+        return transform;
+    }
+
+    /**
+     * Sets the transform of a tile layer in place, without allocating intermediate objects.
+     *
+     * @return true if the transform was changed, false if it was already set to the calculated values
+     */
+    public final boolean setTileLayerTransform(Affine transform, double tileMatrixScale, Point2D tileMatrixTopLeft,
+            double tileMatrixOriginX, double tileMatrixOriginY) {
+
+        double transformScale = scale / tileMatrixScale;
+        double rad = Math.toRadians(rotation);
+        double mxx = transformScale * Math.cos(rad);
+        double mxy = -transformScale * Math.sin(rad);
+        double myx = -mxy;
+        double myy = mxx;
 
         // tile matrix origin in map coordinates
         //
-        Point2D mapOrigin = new Point2D(
-                tileMatrixTopLeft.getX() + tileMatrixOrigin.getX() / tileMatrixScale,
-                tileMatrixTopLeft.getY() - tileMatrixOrigin.getY() / tileMatrixScale);
+        double mapOriginX = tileMatrixTopLeft.getX() + tileMatrixOriginX / tileMatrixScale;
+        double mapOriginY = tileMatrixTopLeft.getY() - tileMatrixOriginY / tileMatrixScale;
 
         // tile matrix origin in view coordinates
         //
-        Point2D viewOrigin = mapToView(mapOrigin);
+        double tx = mapToViewTransform.getMxx() * mapOriginX + mapToViewTransform.getMxy() * mapOriginY + mapToViewTransform.getTx();
+        double ty = mapToViewTransform.getMyx() * mapOriginX + mapToViewTransform.getMyy() * mapOriginY + mapToViewTransform.getTy();
 
-        transform.prependTranslation(viewOrigin.getX(), viewOrigin.getY());
+        if (transform.getMxx() == mxx && transform.getMxy() == mxy && transform.getTx() == tx
+                && transform.getMyx() == myx && transform.getMyy() == myy && transform.getTy() == ty) {
+            return false;
+        }
 
-        return transform;
+        transform.setToTransform(mxx, mxy, tx, myx, myy, ty);
+        return true;
     }
 
     public final Bounds getTileMatrixBounds(double tileMatrixScale, Point2D tileMatrixTopLeft, double viewWidth, double viewHeight) {
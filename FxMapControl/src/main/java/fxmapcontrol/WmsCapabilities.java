@@ -0,0 +1,176 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+import javafx.beans.property.StringProperty;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Layer names from the Capabilities of a Web Map Service (WMS).
+ * <p>
+ * getCapabilitiesAsync requests the Capabilities only once per service URL, shares the result between all
+ * callers, and caches the Capabilities document in the ITileCache of TileImageLoader if one is set.
+ */
+public record WmsCapabilities(List<String> layerNames) {
+
+    private static final Map<String, CompletableFuture<WmsCapabilities>> capabilities = new ConcurrentHashMap<>();
+
+    // service URLs of pending default layer requests by layers property, accessed on the JavaFX application thread
+    private static final Map<StringProperty, String> defaultLayerRequests = new WeakHashMap<>();
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WmsCapabilities {
+        layerNames = List.copyOf(layerNames);
+    }
+
+    /**
+     * Gets the name of the first layer, or an empty string if there is no layer.
+     */
+    public String getDefaultLayerName() {
+        return !layerNames.isEmpty() ? layerNames.get(0) : "";
+    }
+
+    /**
+     * Gets the Capabilities of the Web Map Service with the specified service URL. Only one request is made
+     * per service URL, unless it fails.
+     */
+    public static CompletableFuture<WmsCapabilities> getCapabilitiesAsync(String serviceUrl) {
+        String url = WmsImageLayer.getRequestUrl(serviceUrl, "GetCapabilities").replace(" ", "%20");
+
+        CompletableFuture<WmsCapabilities> future = capabilities.get(url);
+
+        if (future == null) {
+            CompletableFuture<WmsCapabilities> newFuture = new CompletableFuture<>();
+            future = capabilities.putIfAbsent(url, newFuture);
+
+            if (future == null) { // not requested concurrently by another caller
+                future = newFuture;
+
+                // completes newFuture only after it was added, so that a failed request is always removed
+                //
+                CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return readCapabilities(url);
+                    } catch (IOException | XMLStreamException ex) {
+                        throw new CompletionException(ex);
+                    }
+                }, executor).whenComplete((result, exception) -> {
+                    if (exception != null) {
+                        capabilities.remove(url, newFuture); // retry on next call
+                        newFuture.completeExceptionally(exception);
+                    } else {
+                        newFuture.complete(result);
+                    }
+                });
+            }
+        }
+
+        return future;
+    }
+
+    /**
+     * Sets the layers property of a WMS layer to the name of the first layer in the Capabilities of the
+     * service, or to an empty string when the Capabilities can not be read. Does nothing when the serviceUrl
+     * property has changed or the layers property was set meanwhile. Called on the JavaFX application thread.
+     */
+    static void requestDefaultLayer(StringProperty serviceUrlProperty, StringProperty layersProperty) {
+        String serviceUrl = serviceUrlProperty.get();
+
+        if (!serviceUrl.equals(defaultLayerRequests.get(layersProperty))) { // no request in progress
+            defaultLayerRequests.put(layersProperty, serviceUrl);
+
+            getCapabilitiesAsync(serviceUrl).whenComplete((capabilities, exception)
+                    -> Platform.runLater(() -> {
+                        if (serviceUrl.equals(defaultLayerRequests.get(layersProperty))) {
+                            defaultLayerRequests.remove(layersProperty);
+
+                            if (exception != null) {
+                                Logger.getLogger(WmsCapabilities.class.getName()).log(
+                                        Level.WARNING, "{0}: {1}", new Object[]{serviceUrl, exception.getCause()});
+                            }
+
+                            if (serviceUrl.equals(serviceUrlProperty.get()) && layersProperty.get() == null) {
+                                layersProperty.set(capabilities != null ? capabilities.getDefaultLayerName() : "");
+                            }
+                        }
+                    }));
+        }
+    }
+
+    public static WmsCapabilities readCapabilities(String capabilitiesUrl) throws IOException, XMLStreamException {
+        try (InputStream stream = HttpResourceCache.openCapabilitiesStream(capabilitiesUrl)) {
+            return readCapabilities(stream);
+        }
+    }
+
+    /**
+     * Reads the names of all layers nested in the root Layer element, and stops reading at the end of the
+     * root Layer element.
+     */
+    public static WmsCapabilities readCapabilities(InputStream stream) throws XMLStreamException {
+        List<String> layerNames = new ArrayList<>();
+        XMLStreamReader reader = WmtsCapabilities.createReader(stream);
+
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT
+                        && reader.getLocalName().equals("Layer")) {
+
+                    while (WmtsCapabilities.nextChildElement(reader)) {
+                        if (reader.getLocalName().equals("Layer")) {
+                            readLayer(reader, layerNames);
+                        } else {
+                            WmtsCapabilities.skipElement(reader);
+                        }
+                    }
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return new WmsCapabilities(layerNames);
+    }
+
+    private static void readLayer(XMLStreamReader reader, List<String> layerNames) throws XMLStreamException {
+        while (WmtsCapabilities.nextChildElement(reader)) {
+            switch (reader.getLocalName()) {
+                case "Name" -> {
+                    String name = reader.getElementText().trim();
+
+                    if (!name.isEmpty()) {
+                        layerNames.add(name);
+                    }
+                }
+                case "Layer" ->
+                    readLayer(reader, layerNames);
+                default ->
+                    WmtsCapabilities.skipElement(reader);
+            }
+        }
+    }
+}
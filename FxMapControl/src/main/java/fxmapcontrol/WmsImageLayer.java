@@ -4,29 +4,39 @@
  */
 package fxmapcontrol;
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.beans.value.ChangeListener;
-import javafx.concurrent.Service;
 import javafx.concurrent.Task;
 import javafx.geometry.Bounds;
 import javafx.scene.image.Image;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 /**
  * Displays a single map image from a Web Map Service (WMS).
  * <p>
  * The base request URL is specified by the serviceUrl property.
+ * <p>
+ * GetMap responses are optionally cached in a static ITileCache instance, keyed by the request URL. Cache hits
+ * are most likely when the snapToGrid property is set, because the request parameters are then normalized.
  */
 public class WmsImageLayer extends MapImageLayer {
 
+    private static ITileCache imageCache;
+
+    public static ITileCache getCache() {
+        return imageCache;
+    }
+
+    public static void setCache(ITileCache cache) {
+        imageCache = cache;
+    }
+
     private final StringProperty serviceUrlProperty = new SimpleStringProperty(this, "serviceUrl");
     private final StringProperty layersProperty = new SimpleStringProperty(this, "layers");
     private final StringProperty stylesProperty = new SimpleStringProperty(this, "styles", "");
@@ -94,31 +104,22 @@ public class WmsImageLayer extends MapImageLayer {
     }
 
     public List<String> getAllLayers() {
-        List<String> layerNames = null;
+        return getAllLayers(getServiceUrl());
+    }
 
-        if (getServiceUrl() != null && !getServiceUrl().isEmpty()) {
-            String url = getRequestUrl("GetCapabilities").replace(" ", "%20");
+    /**
+     * Gets the names of all layers from the Capabilities of the Web Map Service with the specified URL,
+     * or null if the Capabilities could not be loaded. Blocks until the Capabilities are available.
+     */
+    static List<String> getAllLayers(String serviceUrl) {
+        List<String> layerNames = null;
 
+        if (serviceUrl != null && !serviceUrl.isEmpty()) {
             try {
-                Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(url);
-                NodeList layerNodes = document.getDocumentElement().getElementsByTagName("Layer");
-
-                layerNames = new ArrayList<>();
-
-                if (layerNodes.getLength() > 0) {
-                    layerNodes = ((Element) layerNodes.item(0)).getElementsByTagName("Layer");
-
-                    for (int i = 0; i < layerNodes.getLength(); i++) {
-                        NodeList nameNodes = ((Element) layerNodes.item(i)).getElementsByTagName("Name");
-
-                        if (nameNodes.getLength() > 0) {
-                            layerNames.add(nameNodes.item(0).getTextContent());
-                        }
-                    }
-                }
-            } catch (Exception ex) {
+                layerNames = new ArrayList<>(WmsCapabilities.getCapabilitiesAsync(serviceUrl).join().layerNames());
+            } catch (CompletionException ex) {
                 Logger.getLogger(WmsImageLayer.class.getName()).log(
-                        Level.WARNING, "{0}: {1}", new Object[]{url, ex});
+                        Level.WARNING, "{0}: {1}", new Object[]{serviceUrl, ex.getCause()});
             }
         }
 
@@ -137,7 +138,7 @@ public class WmsImageLayer extends MapImageLayer {
         if (getServiceUrl() != null && !getServiceUrl().isEmpty()) {
             if (getLayers() == null && !getServiceUrl().toUpperCase().contains("LAYERS=")) {
 
-                new DefaultLayerService().start(); // get first Layer from Capabilities
+                WmsCapabilities.requestDefaultLayer(serviceUrlProperty, layersProperty); // get first Layer from Capabilities
             } else {
                 String url = getImageUrl();
 
@@ -150,25 +151,40 @@ public class WmsImageLayer extends MapImageLayer {
         return image;
     }
 
-    protected String getImageUrl() {
-        MapProjection projection = getMap().getProjection();
-        Bounds bounds = projection.boundingBoxToBounds(getBoundingBox());
-        double viewScale = getMap().getViewTransform().getScale();
-        String url = getRequestUrl("GetMap");
-        String urlUpperCase = url.toUpperCase();
-
-        if (!urlUpperCase.contains("LAYERS=") && getLayers() != null) {
-            url += "&LAYERS=" + getLayers();
+    @Override
+    protected Task<Image> createLoadImageTask() {
+        ITileCache cache = imageCache;
+
+        if (cache == null
+                || getServiceUrl() == null
+                || getServiceUrl().isEmpty()
+                || (getLayers() == null && !getServiceUrl().toUpperCase().contains("LAYERS="))) {
+            return null; // call loadImage()
         }
 
-        if (!urlUpperCase.contains("STYLES=") && getStyles() != null) {
-            url += "&STYLES=" + getStyles();
-        }
+        String url = getImageUrl();
 
-        if (!urlUpperCase.contains("FORMAT=") && getFormat() != null) {
-            url += "&FORMAT=" + getFormat();
+        if (url == null || !url.startsWith("http")) {
+            return null;
         }
 
+        return new Task<Image>() {
+            @Override
+            protected Image call() throws Exception {
+                String cacheKey = "WMS/" + HttpResourceCache.getHash(url);
+                byte[] buffer = HttpResourceCache.getBuffer(cache, cacheKey, url, "image/");
+
+                return new Image(new ByteArrayInputStream(buffer));
+            }
+        };
+    }
+
+    protected String getImageUrl() {
+        MapProjection projection = getMap().getProjection();
+        Bounds bounds = projection.boundingBoxToBounds(getBoundingBox());
+        double viewScale = getImageViewScale();
+        String url = getMapRequestUrl(getServiceUrl(), getLayers(), getStyles(), getFormat());
+
         url += "&CRS=" + projection.getCrsValue();
         url += "&BBOX=" + projection.getBboxValue(bounds);
         url += "&WIDTH=" + (int) Math.round(viewScale * bounds.getWidth());
@@ -177,44 +193,44 @@ public class WmsImageLayer extends MapImageLayer {
         return url.replace(" ", "%20");
     }
 
-    private String getRequestUrl(String request) {
-        String url = getServiceUrl();
+    /**
+     * Gets a GetMap request URL with LAYERS, STYLES and FORMAT parameters, unless already contained in
+     * the service URL. CRS, BBOX, WIDTH and HEIGHT parameters have to be appended by the caller.
+     */
+    static String getMapRequestUrl(String serviceUrl, String layers, String styles, String format) {
+        String url = getRequestUrl(serviceUrl, "GetMap");
+        String urlUpperCase = url.toUpperCase();
 
-        if (!url.endsWith("?") && !url.endsWith("&")) {
-            url += !url.contains("?") ? "?" : "&";
+        if (!urlUpperCase.contains("LAYERS=") && layers != null) {
+            url += "&LAYERS=" + layers;
         }
 
-        if (!url.toUpperCase().contains("SERVICE=")) {
-            url += "SERVICE=WMS&";
+        if (!urlUpperCase.contains("STYLES=") && styles != null) {
+            url += "&STYLES=" + styles;
         }
 
-        if (!url.toUpperCase().contains("VERSION=")) {
-            url += "VERSION=1.3.0&";
+        if (!urlUpperCase.contains("FORMAT=") && format != null) {
+            url += "&FORMAT=" + format;
         }
 
-        return url + "REQUEST=" + request;
+        return url;
     }
 
-    private class DefaultLayerService extends Service<String> {
-        @Override
-        protected void succeeded() {
-            setLayers(getValue());
+    static String getRequestUrl(String serviceUrl, String request) {
+        String url = serviceUrl;
+
+        if (!url.endsWith("?") && !url.endsWith("&")) {
+            url += !url.contains("?") ? "?" : "&";
         }
 
-        @Override
-        protected void failed() {
-            setLayers("");
+        if (!url.toUpperCase().contains("SERVICE=")) {
+            url += "SERVICE=WMS&";
         }
 
-        @Override
-        protected Task<String> createTask() {
-            return new Task<String>() {
-                @Override
-                protected String call() {
-                    List<String> layers = getAllLayers();
-                    return layers != null && !layers.isEmpty() ? layers.get(0) : "";
-                }
-            };
+        if (!url.toUpperCase().contains("VERSION=")) {
+            url += "VERSION=1.3.0&";
         }
+
+        return url + "REQUEST=" + request;
     }
 }
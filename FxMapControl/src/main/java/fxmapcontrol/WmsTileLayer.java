@@ -0,0 +1,133 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapcontrol;
+
+import java.util.List;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.beans.value.ChangeListener;
+
+/**
+ * Displays web mercator map tiles from a Web Map Service (WMS).
+ * <p>
+ * Instead of a single viewport-sized image like WmsImageLayer, tiles of a fixed EPSG:3857 grid are requested
+ * by GetMap requests, so that only newly exposed tiles are loaded when the map is panned, and tile images
+ * can be cached by the ITileCache of TileImageLoader. Tiles are only cached when the name property is set.
+ * <p>
+ * The base request URL is specified by the serviceUrl property.
+ */
+public class WmsTileLayer extends MapTileLayer {
+
+    private final StringProperty serviceUrlProperty = new SimpleStringProperty(this, "serviceUrl");
+    private final StringProperty layersProperty = new SimpleStringProperty(this, "layers");
+    private final StringProperty stylesProperty = new SimpleStringProperty(this, "styles", "");
+    private final StringProperty formatProperty = new SimpleStringProperty(this, "format", "image/png");
+
+    public WmsTileLayer() {
+        ChangeListener<String> changeListener = (observable, oldValue, newValue) -> updateTileSource();
+        serviceUrlProperty.addListener(changeListener);
+        layersProperty.addListener(changeListener);
+        stylesProperty.addListener(changeListener);
+        formatProperty.addListener(changeListener);
+    }
+
+    public WmsTileLayer(String serviceUrl) {
+        this();
+        setServiceUrl(serviceUrl);
+    }
+
+    public WmsTileLayer(String name, String serviceUrl) {
+        this(serviceUrl);
+        setName(name);
+    }
+
+    public final StringProperty serviceUrlProperty() {
+        return serviceUrlProperty;
+    }
+
+    public final String getServiceUrl() {
+        return serviceUrlProperty.get();
+    }
+
+    public final void setServiceUrl(String serviceUrl) {
+        serviceUrlProperty.set(serviceUrl);
+    }
+
+    public final StringProperty layersProperty() {
+        return layersProperty;
+    }
+
+    public final String getLayers() {
+        return layersProperty.get();
+    }
+
+    public final void setLayers(String layers) {
+        layersProperty.set(layers);
+    }
+
+    public final StringProperty stylesProperty() {
+        return stylesProperty;
+    }
+
+    public final String getStyles() {
+        return stylesProperty.get();
+    }
+
+    public final void setStyles(String styles) {
+        stylesProperty.set(styles);
+    }
+
+    public final StringProperty formatProperty() {
+        return formatProperty;
+    }
+
+    public final String getFormat() {
+        return formatProperty.get();
+    }
+
+    public final void setFormat(String format) {
+        formatProperty.set(format);
+    }
+
+    public List<String> getAllLayers() {
+        return WmsImageLayer.getAllLayers(getServiceUrl());
+    }
+
+    @Override
+    protected String getTileSourceName() {
+        String sourceName = super.getTileSourceName();
+        TileSource tileSource = getTileSource();
+
+        if (sourceName != null && !sourceName.isEmpty() && tileSource != null) {
+            // distinguish cached tiles of different layers, styles and formats
+            //
+            sourceName += "/" + HttpResourceCache.getHash(tileSource.getUrlFormat());
+        }
+
+        return sourceName;
+    }
+
+    private void updateTileSource() {
+        TileSource tileSource = null;
+        String serviceUrl = getServiceUrl();
+
+        if (serviceUrl != null && !serviceUrl.isEmpty()) {
+            if (getLayers() == null && !serviceUrl.toUpperCase().contains("LAYERS=")) {
+
+                WmsCapabilities.requestDefaultLayer(serviceUrlProperty, layersProperty); // get first Layer from Capabilities
+            } else {
+                String url = WmsImageLayer.getMapRequestUrl(serviceUrl, getLayers(), getStyles(), getFormat());
+
+                url += "&CRS=EPSG:3857&BBOX={W},{S},{E},{N}";
+                url += "&WIDTH=" + TILE_SIZE;
+                url += "&HEIGHT=" + TILE_SIZE;
+
+                tileSource = new TileSource(url.replace(" ", "%20"));
+            }
+        }
+
+        setTileSource(tileSource);
+    }
+}
@@ -1,190 +1,395 @@
 package fxmapcontrol;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javafx.geometry.Point2D;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import org.w3c.dom.Document;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 public record WmtsCapabilities(String layerIdentifier, WmtsTileSource tileSource, Collection<WmtsTileMatrixSet> tileMatrixSets) {
 
+    private record LayerInfo(String identifier, String urlTemplate, String styleId, List<String> tileMatrixSetIds) {
+    }
+
     public static WmtsCapabilities readCapabilities(String capabilitiesUrl, String layerIdentifier)
             throws ParserConfigurationException, SAXException, IOException {
 
-        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(capabilitiesUrl);
+        try (InputStream stream = HttpResourceCache.openCapabilitiesStream(capabilitiesUrl)) {
+            return readCapabilities(stream, layerIdentifier);
+        }
+    }
 
-        Element contentsElement = getChildElement(document.getDocumentElement(), "Contents");
-        if (contentsElement == null) {
-            throw new IllegalArgumentException("No Contents element found.");
+    /**
+     * Reads a capabilities document with a streaming parser. XML errors are reported as SAXException, as
+     * with the DOM parser that was used before.
+     */
+    public static WmtsCapabilities readCapabilities(InputStream stream, String layerIdentifier)
+            throws SAXException {
+
+        try {
+            XMLStreamReader reader = createReader(stream);
+
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT
+                            && reader.getLocalName().equals("Contents")) {
+                        return readContents(reader, layerIdentifier);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            throw new SAXException(ex);
         }
 
-        NodeList layerNodes = contentsElement.getElementsByTagName("Layer");
-        Element layerElement = null;
+        throw new IllegalArgumentException("No Contents element found.");
+    }
 
-        for (int i = 0; i < layerNodes.getLength(); i++) {
-            Element item = (Element) layerNodes.item(i);
-            String layerId = getChildElementText(item, "ows:Identifier");
+    static XMLStreamReader createReader(InputStream stream) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
 
-            if (layerId != null
-                    && !layerId.isEmpty()
-                    && (layerIdentifier == null // first layer
-                    || layerIdentifier.equals(layerId))) { // or matching layer
+        return factory.createXMLStreamReader(stream);
+    }
 
-                layerIdentifier = layerId;
-                layerElement = item;
-                break;
+    /**
+     * Reads the children of the Contents element up to the requested Layer and all its linked
+     * TileMatrixSets, and stops reading the rest of the document.
+     */
+    private static WmtsCapabilities readContents(XMLStreamReader reader, String layerIdentifier)
+            throws XMLStreamException {
+
+        LayerInfo layer = null;
+        Map<String, WmtsTileMatrixSet> tileMatrixSets = new HashMap<>();
+
+        while ((layer == null || !tileMatrixSets.keySet().containsAll(layer.tileMatrixSetIds()))
+                && nextChildElement(reader)) {
+
+            switch (reader.getLocalName()) {
+                case "Layer" -> {
+                    if (layer == null) {
+                        LayerInfo item = readLayer(reader);
+
+                        if (item.identifier() != null
+                                && !item.identifier().isEmpty()
+                                && (layerIdentifier == null // first layer
+                                || layerIdentifier.equals(item.identifier()))) { // or matching layer
+
+                            layer = item;
+                        }
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+                case "TileMatrixSet" -> {
+                    // TileMatrixSets preceding the Layer are kept until the links are known
+                    WmtsTileMatrixSet tileMatrixSet = readTileMatrixSet(reader);
+
+                    if (layer == null || layer.tileMatrixSetIds().contains(tileMatrixSet.identifier())) {
+                        tileMatrixSets.put(tileMatrixSet.identifier(), tileMatrixSet);
+                    }
+                }
+                default ->
+                    skipElement(reader);
             }
         }
 
-        if (layerElement == null) {
+        if (layer == null) {
             throw new IllegalArgumentException("No Layer element found.");
         }
 
-        Element resourceUrlElement = getChildElement(layerElement, "ResourceURL");
-        String urlTemplate;
-        if (resourceUrlElement == null
-                || (urlTemplate = resourceUrlElement.getAttribute("template")) == null
-                || urlTemplate.isEmpty()) {
+        layerIdentifier = layer.identifier();
+
+        if (layer.urlTemplate() == null || layer.urlTemplate().isEmpty()) {
             throw new IllegalArgumentException("No valid ResourceURL element found in Layer \"" + layerIdentifier + "\".");
         }
 
-        NodeList styleNodes = layerElement.getElementsByTagName("Style");
-        Element styleElement = null;
+        if (layer.styleId() == null) {
+            throw new IllegalArgumentException("No valid Style element found in Layer \"" + layerIdentifier + "\".");
+        }
+
+        if (layer.styleId().isEmpty()) {
+            throw new IllegalArgumentException("No ows:Identifier element found in default Style in Layer \"" + layerIdentifier + "\".");
+        }
 
-        for (int i = 0; i < styleNodes.getLength(); i++) {
-            Element item = (Element) styleNodes.item(i);
+        Collection<WmtsTileMatrixSet> linkedTileMatrixSets = new ArrayList<>(layer.tileMatrixSetIds().size());
 
-            if ("true".equals(item.getAttribute("isDefault"))) {
-                styleElement = item;
-                break;
-            }
+        for (String tileMatrixSetId : layer.tileMatrixSetIds()) {
+            WmtsTileMatrixSet tileMatrixSet = tileMatrixSets.get(tileMatrixSetId);
 
-            if (i == 0) {
-                styleElement = item;
+            if (tileMatrixSet != null) {
+                linkedTileMatrixSets.add(tileMatrixSet);
             }
         }
 
-        if (styleElement == null) {
-            throw new IllegalArgumentException("No valid Style element found in Layer \"" + layerIdentifier + "\".");
-        }
+        WmtsTileSource tileSource = new WmtsTileSource(layer.urlTemplate().replace("{Style}", layer.styleId()));
 
-        String styleId = getChildElementText(styleElement, "ows:Identifier");
-        if (styleId == null || styleId.isEmpty()) {
-            throw new IllegalArgumentException("No ows:Identifier element found in default Style in Layer \"" + layerIdentifier + "\".");
-        }
+        return new WmtsCapabilities(layerIdentifier, tileSource, linkedTileMatrixSets);
+    }
 
-        NodeList tileMatrixSetLinkNodes = layerElement.getElementsByTagName("TileMatrixSetLink");
+    private static LayerInfo readLayer(XMLStreamReader reader) throws XMLStreamException {
+        String identifier = null;
+        String urlTemplate = null;
+        String styleId = null;
+        boolean defaultStyle = false;
         List<String> tileMatrixSetIds = new ArrayList<>();
 
-        for (int i = 0; i < tileMatrixSetLinkNodes.getLength(); i++) {
-            String tileMatrixSetId = getChildElementText((Element) tileMatrixSetLinkNodes.item(i), "TileMatrixSet");
-            if (tileMatrixSetId != null && !tileMatrixSetId.isEmpty()) {
-                tileMatrixSetIds.add(tileMatrixSetId);
+        while (nextChildElement(reader)) {
+            switch (reader.getLocalName()) {
+                case "Identifier" ->
+                    identifier = reader.getElementText().trim();
+                case "ResourceURL" -> {
+                    if (urlTemplate == null) {
+                        urlTemplate = reader.getAttributeValue(null, "template");
+                    }
+                    skipElement(reader);
+                }
+                case "Style" -> {
+                    boolean isDefault = "true".equals(reader.getAttributeValue(null, "isDefault"));
+                    String id = readChildElementText(reader, "Identifier");
+
+                    if (!defaultStyle && (isDefault || styleId == null)) {
+                        styleId = id != null ? id : "";
+                        defaultStyle = isDefault;
+                    }
+                }
+                case "TileMatrixSetLink" -> {
+                    String tileMatrixSetId = readChildElementText(reader, "TileMatrixSet");
+
+                    if (tileMatrixSetId != null && !tileMatrixSetId.isEmpty()) {
+                        tileMatrixSetIds.add(tileMatrixSetId);
+                    }
+                }
+                default ->
+                    skipElement(reader);
             }
         }
 
-        NodeList tileMatrixSetNodes = contentsElement.getElementsByTagName("TileMatrixSet");
-        Collection<WmtsTileMatrixSet> tileMatrixSets = new ArrayList<>(tileMatrixSetNodes.getLength());
+        return new LayerInfo(identifier, urlTemplate, styleId, tileMatrixSetIds);
+    }
+
+    public static WmtsTileMatrixSet readTileMatrixSet(Element tileMatrixSetElement) {
+        NodeList tileMatrixNodes = tileMatrixSetElement.getElementsByTagName("TileMatrix");
+        List<WmtsTileMatrix> tileMatrixes = new ArrayList<>(tileMatrixNodes.getLength());
+
+        for (int i = 0; i < tileMatrixNodes.getLength(); i++) {
+            tileMatrixes.add(readTileMatrix((Element) tileMatrixNodes.item(i)));
+        }
+
+        return createTileMatrixSet(
+                getChildElementText(tileMatrixSetElement, "ows:Identifier"),
+                getChildElementText(tileMatrixSetElement, "ows:SupportedCRS"),
+                tileMatrixes);
+    }
+
+    public static WmtsTileMatrix readTileMatrix(Element tileMatrixElement) {
+        Map<String, String> values = new HashMap<>();
+
+        for (String name : new String[]{"ows:Identifier", "ScaleDenominator", "TopLeftCorner",
+            "TileWidth", "TileHeight", "MatrixWidth", "MatrixHeight"}) {
 
-        for (int i = 0; i < tileMatrixSetNodes.getLength(); i++) {
-            Element item = (Element) tileMatrixSetNodes.item(i);
-            String tileMatrixSetId = getChildElementText(item, "ows:Identifier");
+            String value = getChildElementText(tileMatrixElement, name);
 
-            if (tileMatrixSetId != null && tileMatrixSetIds.contains(tileMatrixSetId)) {
-                tileMatrixSets.add(readTileMatrixSet(item));
+            if (value != null) {
+                values.put(name.substring(name.indexOf(':') + 1), value.trim());
             }
         }
 
-        WmtsTileSource tileSource = new WmtsTileSource(urlTemplate.replace("{Style}", styleId));
+        return createTileMatrix(values);
+    }
+
+    /**
+     * Reads a TileMatrixSet element. The reader must be positioned at the start of the element, and is
+     * positioned at its end when the method returns.
+     */
+    private static WmtsTileMatrixSet readTileMatrixSet(XMLStreamReader reader) throws XMLStreamException {
+        String identifier = null;
+        String supportedCrs = null;
+        List<WmtsTileMatrix> tileMatrixes = new ArrayList<>();
+
+        while (nextChildElement(reader)) {
+            switch (reader.getLocalName()) {
+                case "Identifier" ->
+                    identifier = reader.getElementText().trim();
+                case "SupportedCRS" ->
+                    supportedCrs = reader.getElementText().trim();
+                case "TileMatrix" ->
+                    tileMatrixes.add(readTileMatrix(reader));
+                default ->
+                    skipElement(reader);
+            }
+        }
 
-        return new WmtsCapabilities(layerIdentifier, tileSource, tileMatrixSets);
+        return createTileMatrixSet(identifier, supportedCrs, tileMatrixes);
     }
 
-    public static WmtsTileMatrixSet readTileMatrixSet(Element tileMatrixSetElement) {
-        String identifier = getChildElementText(tileMatrixSetElement, "ows:Identifier");
+    private static WmtsTileMatrixSet createTileMatrixSet(String identifier, String supportedCrs, List<WmtsTileMatrix> tileMatrixes) {
         if (identifier == null || identifier.isEmpty()) {
             throw new IllegalArgumentException("No ows:Identifier element found in TileMatrixSet.");
         }
 
-        String supportedCrs = getChildElementText(tileMatrixSetElement, "ows:SupportedCRS");
         if (supportedCrs == null || supportedCrs.isEmpty()) {
             throw new IllegalArgumentException("No ows:SupportedCRS element found in TileMatrixSet \"" + identifier + "\".");
         }
 
-        NodeList tileMatrixNodes = tileMatrixSetElement.getElementsByTagName("TileMatrix");
-        if (tileMatrixNodes.getLength() == 0) {
+        if (tileMatrixes.isEmpty()) {
             throw new IllegalArgumentException("No TileMatrix elements found in TileMatrixSet \"" + identifier + "\".");
         }
 
-        List<WmtsTileMatrix> tileMatrixes = new ArrayList<>(tileMatrixNodes.getLength());
-        for (int i = 0; i < tileMatrixNodes.getLength(); i++) {
-            tileMatrixes.add(readTileMatrix((Element) tileMatrixNodes.item(i)));
+        return new WmtsTileMatrixSet(identifier, supportedCrs, tileMatrixes);
+    }
+
+    /**
+     * Reads a TileMatrix element. The reader must be positioned at the start of the element, and is
+     * positioned at its end when the method returns.
+     */
+    private static WmtsTileMatrix readTileMatrix(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> values = new HashMap<>();
+
+        while (nextChildElement(reader)) {
+            String name = reader.getLocalName();
+
+            switch (name) {
+                case "Identifier", "ScaleDenominator", "TopLeftCorner",
+                        "TileWidth", "TileHeight", "MatrixWidth", "MatrixHeight" ->
+                    values.put(name, reader.getElementText().trim());
+                default ->
+                    skipElement(reader);
+            }
         }
 
-        return new WmtsTileMatrixSet(identifier, supportedCrs, tileMatrixes);
+        return createTileMatrix(values);
     }
 
-    public static WmtsTileMatrix readTileMatrix(Element tileMatrixElement) {
-        String identifier = getChildElementText(tileMatrixElement, "ows:Identifier");
+    /**
+     * Creates a WmtsTileMatrix from the trimmed texts of the child elements of a TileMatrix element, keyed
+     * by their local names.
+     */
+    private static WmtsTileMatrix createTileMatrix(Map<String, String> values) {
+        String identifier = values.get("Identifier");
         if (identifier == null || identifier.isEmpty()) {
             throw new IllegalArgumentException("No ows:Identifier element found in TileMatrix.");
         }
 
-        String valueString = getChildElementText(tileMatrixElement, "ScaleDenominator");
+        String valueString = values.get("ScaleDenominator");
         if (valueString == null || valueString.isEmpty()) {
             throw new IllegalArgumentException("No ScaleDenominator element found in TileMatrix \"" + identifier + "\".");
         }
 
-        double scaleDenominator = Double.valueOf(valueString);
+        double scaleDenominator = Double.parseDouble(valueString);
 
-        valueString = getChildElementText(tileMatrixElement, "TopLeftCorner");
+        valueString = values.get("TopLeftCorner");
         String[] topLeftValues;
         if (valueString == null || valueString.isEmpty()
-                || (topLeftValues = valueString.split(" ")).length != 2) {
+                || (topLeftValues = valueString.split("\\s+")).length != 2) {
             throw new IllegalArgumentException("No TopLeftCorner element found in TileMatrix \"" + identifier + "\".");
         }
 
         Point2D topLeft = new Point2D(
-                Double.valueOf(topLeftValues[0]),
-                Double.valueOf(topLeftValues[1]));
+                Double.parseDouble(topLeftValues[0]),
+                Double.parseDouble(topLeftValues[1]));
 
-        valueString = getChildElementText(tileMatrixElement, "TileWidth");
+        valueString = values.get("TileWidth");
         if (valueString == null || valueString.isEmpty()) {
             throw new IllegalArgumentException("No TileWidth element found in TileMatrix \"" + identifier + "\".");
         }
 
-        int tileWidth = Integer.valueOf(valueString);
+        int tileWidth = Integer.parseInt(valueString);
 
-        valueString = getChildElementText(tileMatrixElement, "TileHeight");
+        valueString = values.get("TileHeight");
         if (valueString == null || valueString.isEmpty()) {
             throw new IllegalArgumentException("No TileHeight element found in TileMatrix \"" + identifier + "\".");
         }
 
-        int tileHeight = Integer.valueOf(valueString);
+        int tileHeight = Integer.parseInt(valueString);
 
-        valueString = getChildElementText(tileMatrixElement, "MatrixWidth");
+        valueString = values.get("MatrixWidth");
         if (valueString == null || valueString.isEmpty()) {
             throw new IllegalArgumentException("No MatrixWidth element found in TileMatrix \"" + identifier + "\".");
         }
 
-        int matrixWidth = Integer.valueOf(valueString);
+        int matrixWidth = Integer.parseInt(valueString);
 
-        valueString = getChildElementText(tileMatrixElement, "MatrixHeight");
+        valueString = values.get("MatrixHeight");
         if (valueString == null || valueString.isEmpty()) {
             throw new IllegalArgumentException("No MatrixHeight element found in TileMatrix \"" + identifier + "\".");
         }
 
-        int matrixHeight = Integer.valueOf(valueString);
+        int matrixHeight = Integer.parseInt(valueString);
 
         return new WmtsTileMatrix(identifier, scaleDenominator, topLeft, tileWidth, tileHeight, matrixWidth, matrixHeight);
     }
 
+    /**
+     * Advances the reader to the start of the next child element of the current element. Returns false
+     * when the end of the current element is reached instead.
+     */
+    static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    return true;
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    return false;
+                }
+                default -> {
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Advances the reader from the start to the end of the current element.
+     */
+    static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT ->
+                    depth++;
+                case XMLStreamConstants.END_ELEMENT ->
+                    depth--;
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the trimmed text of the first child element with the specified local name, and advances the
+     * reader to the end of the current element.
+     */
+    private static String readChildElementText(XMLStreamReader reader, String localName) throws XMLStreamException {
+        String text = null;
+
+        while (nextChildElement(reader)) {
+            if (text == null && reader.getLocalName().equals(localName)) {
+                text = reader.getElementText().trim();
+            } else {
+                skipElement(reader);
+            }
+        }
+
+        return text;
+    }
+
     private static Element getChildElement(Element element, String tagName) {
         NodeList elements = element.getElementsByTagName(tagName);
 
@@ -6,6 +6,7 @@ package fxmapcontrol;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -15,6 +16,7 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
+import javafx.scene.Node;
 
 /**
  * Displays map tiles from a Web Map Tile Service (WMTS).
@@ -113,46 +115,37 @@ public class WmtsTileLayer extends MapTileLayerBase {
     private boolean updateChildLayers(WmtsTileMatrixSet tileMatrixSet) {
         MapBase map = getMap();
         boolean layersChanged = false;
-        double maxScale = 1.001 * map.getViewTransform().getScale(); // avoid rounding issues
+        double maxScale = 1.001 * ViewTransform.zoomLevelToScale(getTileZoomLevel()); // avoid rounding issues
 
-        // show all TileMatrix layers with Scale <= maxScale, at least the first layer
+        // show all TileMatrix layers with Scale <= maxScale, at least the first layer. Since tileMatrixes
+        // are sorted by ascending scale, these are the layers from index 0 to maxIndex
         //
         List<WmtsTileMatrix> tileMatrixes = tileMatrixSet.tileMatrixes();
-        List<WmtsTileMatrix> currentMatrixes = tileMatrixes.stream()
-                .filter(matrix -> matrix.scale() <= maxScale)
-                .toList();
+        int maxIndex = 0;
 
-        if (currentMatrixes.isEmpty() && !tileMatrixes.isEmpty()) {
-            currentMatrixes.add(tileMatrixes.get(0));
+        while (maxIndex < tileMatrixes.size() - 1 && tileMatrixes.get(maxIndex + 1).scale() <= maxScale) {
+            maxIndex++;
         }
 
-        if (this != map.getChildrenUnmodifiable().stream().findFirst().orElse(null)) { // no background tiles
-            currentMatrixes = currentMatrixes.stream()
-                    .skip(currentMatrixes.size() - 1)
-                    .toList(); // last element only
+        List<Node> mapChildren = map.getChildrenUnmodifiable();
+        int minIndex = !mapChildren.isEmpty() && mapChildren.get(0) == this
+                ? Math.max(maxIndex - getMaxBackgroundLevels(), 0)
+                : maxIndex; // no background tiles
 
-        } else if (currentMatrixes.size() > getMaxBackgroundLevels() + 1) {
-            currentMatrixes = currentMatrixes.stream()
-                    .skip(currentMatrixes.size() - getMaxBackgroundLevels() - 1)
-                    .toList();
-        }
-
-        List<WmtsTileMatrix> layerMatrixes = currentMatrixes; // final...
-
-        List<WmtsTileMatrixLayer> currentLayers = getChildren().stream()
-                .map(node -> (WmtsTileMatrixLayer) node)
-                .filter(layer -> layerMatrixes.contains(layer.getTileMatrix()))
-                .toList();
+        Map<WmtsTileMatrix, WmtsTileMatrixLayer> currentLayers = new IdentityHashMap<>();
+        getChildren().forEach(node -> {
+            WmtsTileMatrixLayer layer = (WmtsTileMatrixLayer) node;
+            currentLayers.put(layer.getTileMatrix(), layer);
+        });
 
-        getChildren().clear();
+        List<Node> layers = new ArrayList<>(maxIndex - minIndex + 1);
 
-        for (WmtsTileMatrix tileMatrix : layerMatrixes) {
-            WmtsTileMatrixLayer layer = currentLayers.stream()
-                    .filter(l -> l.getTileMatrix() == tileMatrix)
-                    .findFirst().orElse(null);
+        for (int i = minIndex; i <= maxIndex; i++) {
+            WmtsTileMatrix tileMatrix = tileMatrixes.get(i);
+            WmtsTileMatrixLayer layer = currentLayers.get(tileMatrix);
 
             if (layer == null) {
-                layer = new WmtsTileMatrixLayer(tileMatrix, tileMatrixSet.tileMatrixes().indexOf(tileMatrix));
+                layer = new WmtsTileMatrixLayer(tileMatrix, i);
                 layersChanged = true;
             }
 
@@ -160,7 +153,12 @@ public class WmtsTileLayer extends MapTileLayerBase {
                 layersChanged = true;
             }
 
-            getChildren().add(layer);
+            layers.add(layer);
+        }
+
+        if (!layers.equals(getChildren())) {
+            getChildren().setAll(layers);
+            layersChanged = true;
         }
 
         return layersChanged;
@@ -5,9 +5,14 @@
 package fxmapcontrol;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javafx.geometry.Bounds;
-import javafx.geometry.Point2D;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.image.ImageView;
 import javafx.scene.transform.Affine;
@@ -16,6 +21,7 @@ public class WmtsTileMatrixLayer extends Parent {
 
     private final WmtsTileMatrix tileMatrix;
     private final int zoomLevel; // index of TileMatrix in WmtsTileMatrixSet.TileMatrixes
+    private final Affine transform = new Affine();
 
     private int xMin;
     private int xMax;
@@ -26,7 +32,7 @@ public class WmtsTileMatrixLayer extends Parent {
     public WmtsTileMatrixLayer(WmtsTileMatrix tileMatrix, int zoomLevel) {
         this.tileMatrix = tileMatrix;
         this.zoomLevel = zoomLevel;
-        getTransforms().add(new Affine());
+        getTransforms().add(transform);
     }
 
     public final WmtsTileMatrix getTileMatrix() {
@@ -36,10 +42,8 @@ public class WmtsTileMatrixLayer extends Parent {
     public final void setTransform(ViewTransform viewTransform) {
         // tile matrix origin in pixels
         //
-        Point2D tileMatrixOrigin = new Point2D(tileMatrix.tileWidth() * xMin, tileMatrix.tileHeight() * yMin);
-
-        getTransforms().set(0,
-                viewTransform.getTileLayerTransform(tileMatrix.scale(), tileMatrix.topLeft(), tileMatrixOrigin));
+        viewTransform.setTileLayerTransform(transform, tileMatrix.scale(), tileMatrix.topLeft(),
+                tileMatrix.tileWidth() * xMin, tileMatrix.tileHeight() * yMin);
     }
 
     public final boolean setBounds(ViewTransform viewTransform, double viewWidth, double viewHeight) {
@@ -71,34 +75,44 @@ public class WmtsTileMatrixLayer extends Parent {
     }
 
     public final List<Tile> updateTiles() {
-        List<Tile> newTiles = new ArrayList<>();
+        Map<TileCoords, Tile> currentTiles = new HashMap<>();
+        tiles.forEach(tile -> currentTiles.put(tile.getCoords(), tile));
+
+        List<Tile> newTiles = new ArrayList<>((xMax - xMin + 1) * (yMax - yMin + 1));
+        List<Node> addedImages = new ArrayList<>();
 
         for (int ty = yMin; ty <= yMax; ty++) {
             for (int tx = xMin; tx <= xMax; tx++) {
-                int x = tx;
-                int y = ty;
-                newTiles.add(tiles.stream()
-                        .filter(t -> t.getX() == x && t.getY() == y).findAny()
-                        .orElse(new Tile(zoomLevel, x, y)));
+                Tile tile = currentTiles.remove(new TileCoords(tx, ty, zoomLevel));
+
+                if (tile == null) {
+                    tile = new Tile(zoomLevel, tx, ty);
+                    addedImages.add(tile.getImageView());
+                }
+
+                ImageView imageView = tile.getImageView();
+                imageView.setX(tileMatrix.tileWidth() * (tx - xMin));
+                imageView.setY(tileMatrix.tileHeight() * (ty - yMin));
+                imageView.setFitWidth(tileMatrix.tileWidth());
+                imageView.setFitHeight(tileMatrix.tileHeight());
+                newTiles.add(tile);
             }
         }
 
         tiles = newTiles;
 
+        // remaining entries in currentTiles are no longer visible
+        //
         if (tiles.isEmpty()) {
             getChildren().clear();
-
         } else {
-            getChildren().setAll(tiles.stream()
-                    .map(tile -> {
-                        ImageView imageView = tile.getImageView();
-                        imageView.setX(tileMatrix.tileWidth() * (tile.getX() - xMin));
-                        imageView.setY(tileMatrix.tileHeight() * (tile.getY() - yMin));
-                        imageView.setFitWidth(tileMatrix.tileWidth());
-                        imageView.setFitHeight(tileMatrix.tileHeight());
-                        return imageView;
-                    })
-                    .toList());
+            if (!currentTiles.isEmpty()) {
+                Set<Node> removedImages = Collections.newSetFromMap(new IdentityHashMap<>());
+                currentTiles.values().forEach(tile -> removedImages.add(tile.getImageView()));
+                getChildren().removeAll(removedImages);
+            }
+
+            getChildren().addAll(addedImages);
         }
 
         return tiles;
@@ -16,8 +16,35 @@ public class WorldMercatorProjection extends MapProjection {
     private static final double convergenceTolerance = 1e-6;
     private static final int maxIterations = 10;
 
+    // Coefficients of the conformal latitude series, p.45 (3-5)
+    private static final double e2 = WGS84_ECCENTRICITY * WGS84_ECCENTRICITY;
+    private static final double e4 = e2 * e2;
+    private static final double e6 = e2 * e4;
+    private static final double e8 = e4 * e4;
+    private static final double seriesCoefficient2 = e2 / 2d + 5d * e4 / 24d + e6 / 12d + 13d * e8 / 360d;
+    private static final double seriesCoefficient4 = 7d * e4 / 48d + 29d * e6 / 240d + 811d * e8 / 11520d;
+    private static final double seriesCoefficient6 = 7d * e6 / 120d + 81d * e8 / 1120d;
+    private static final double seriesCoefficient8 = 4279d * e8 / 161280d;
+
     public static final double MAX_LATITUDE = yToLatitude(180d);
 
+    /**
+     * Selects the algorithm used to transform map Y values to latitudes.
+     */
+    public enum InverseMethod {
+        /**
+         * Fixed-point iteration of the conformal latitude equation, p.44 (7-9).
+         */
+        ITERATIVE,
+        /**
+         * Closed-form conformal latitude series, p.45 (3-5). Needs no iteration and no Math.pow calls, and
+         * is accurate to better than 1e-9 degrees for WGS84.
+         */
+        SERIES
+    }
+
+    private InverseMethod inverseMethod = InverseMethod.ITERATIVE;
+
     public WorldMercatorProjection() {
         this("EPSG:3395");
     }
@@ -26,6 +53,14 @@ public class WorldMercatorProjection extends MapProjection {
         setCrsId(crsId);
     }
 
+    public final InverseMethod getInverseMethod() {
+        return inverseMethod;
+    }
+
+    public final void setInverseMethod(InverseMethod inverseMethod) {
+        this.inverseMethod = inverseMethod != null ? inverseMethod : InverseMethod.ITERATIVE;
+    }
+
     @Override
     public final boolean isNormalCylindrical() {
         return true;
@@ -55,10 +90,30 @@ public class WorldMercatorProjection extends MapProjection {
     @Override
     public Location mapToLocation(Point2D point) {
         return new Location(
-                yToLatitude(point.getY() / WGS84_METERS_PER_DEGREE),
+                yToLatitude(point.getY() / WGS84_METERS_PER_DEGREE, inverseMethod),
                 point.getX() / WGS84_METERS_PER_DEGREE);
     }
 
+    @Override
+    public void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        for (int i = 0; i < 2 * count; i += 2) {
+            double latitude = src[srcOffset + i];
+            double longitude = src[srcOffset + i + 1];
+            dst[dstOffset + i] = WGS84_METERS_PER_DEGREE * longitude;
+            dst[dstOffset + i + 1] = WGS84_METERS_PER_DEGREE * latitudeToY(latitude);
+        }
+    }
+
+    @Override
+    public void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        for (int i = 0; i < 2 * count; i += 2) {
+            double x = src[srcOffset + i];
+            double y = src[srcOffset + i + 1];
+            dst[dstOffset + i] = yToLatitude(y / WGS84_METERS_PER_DEGREE, inverseMethod);
+            dst[dstOffset + i + 1] = x / WGS84_METERS_PER_DEGREE;
+        }
+    }
+
     public static double latitudeToY(double latitude) {
         if (latitude <= -90d) {
             return Double.NEGATIVE_INFINITY;
@@ -87,6 +142,28 @@ public class WorldMercatorProjection extends MapProjection {
         return lat * 180d / Math.PI;
     }
 
+    public static double yToLatitude(double y, InverseMethod inverseMethod) {
+        return inverseMethod == InverseMethod.SERIES ? yToLatitudeSeries(y) : yToLatitude(y);
+    }
+
+    public static double yToLatitudeSeries(double y) {
+        double chi = Math.PI / 2d - 2d * Math.atan(Math.exp(-y * Math.PI / 180d)); // p.45 (7-13)
+        double sin2Chi = Math.sin(2d * chi);
+        double cos2Chi = Math.cos(2d * chi);
+        double sin4Chi = 2d * sin2Chi * cos2Chi;
+        double cos4Chi = 1d - 2d * sin2Chi * sin2Chi;
+        double sin6Chi = sin4Chi * cos2Chi + cos4Chi * sin2Chi;
+        double sin8Chi = 2d * sin4Chi * cos4Chi;
+
+        double lat = chi // p.45 (3-5)
+                + seriesCoefficient2 * sin2Chi
+                + seriesCoefficient4 * sin4Chi
+                + seriesCoefficient6 * sin6Chi
+                + seriesCoefficient8 * sin8Chi;
+
+        return lat * 180d / Math.PI;
+    }
+
     private static double conformalFactor(double lat) {
         double eSinLat = WGS84_ECCENTRICITY * Math.sin(lat);
 
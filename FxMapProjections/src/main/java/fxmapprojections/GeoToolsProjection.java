@@ -149,7 +149,7 @@ public class GeoToolsProjection extends MapProjection {
         try {
             DirectPosition2D pos = new DirectPosition2D();
             DirectPosition2D loc = new DirectPosition2D(
-                    location.getLongitude(), location.getLatitude());
+                    location.longitude(), location.latitude());
 
             locationToMapTransform.transform(loc, pos);
 
@@ -180,6 +180,67 @@ public class GeoToolsProjection extends MapProjection {
         }
     }
 
+    /**
+     * Transforms count interleaved latitude and longitude values by a single MathTransform array
+     * operation. The values are written to dst in the longitude, latitude order of the source CRS, then
+     * transformed in place and scaled.
+     */
+    @Override
+    public void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        if (locationToMapTransform == null) {
+            throw new IllegalStateException("The CRS property is not set.");
+        }
+
+        for (int i = 0; i < 2 * count; i += 2) {
+            double latitude = src[srcOffset + i];
+            double longitude = src[srcOffset + i + 1];
+            dst[dstOffset + i] = longitude;
+            dst[dstOffset + i + 1] = latitude;
+        }
+
+        try {
+            locationToMapTransform.transform(dst, dstOffset, dst, dstOffset, count);
+
+        } catch (TransformException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        if (scaleFactor != 1d) {
+            for (int i = 0; i < 2 * count; i++) {
+                dst[dstOffset + i] *= scaleFactor;
+            }
+        }
+    }
+
+    /**
+     * Transforms count interleaved x and y map coordinates by a single MathTransform array operation.
+     * The values are written unscaled to dst, then transformed in place and swapped to latitude and
+     * longitude order.
+     */
+    @Override
+    public void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        if (mapToLocationTransform == null) {
+            throw new IllegalStateException("The CRS property is not set.");
+        }
+
+        for (int i = 0; i < 2 * count; i++) {
+            dst[dstOffset + i] = src[srcOffset + i] / scaleFactor;
+        }
+
+        try {
+            mapToLocationTransform.transform(dst, dstOffset, dst, dstOffset, count);
+
+        } catch (TransformException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        for (int i = 0; i < 2 * count; i += 2) {
+            double longitude = dst[dstOffset + i];
+            dst[dstOffset + i] = dst[dstOffset + i + 1];
+            dst[dstOffset + i + 1] = longitude;
+        }
+    }
+
     @Override
     public String getBboxValue(Bounds bounds) {
         return String.format(Locale.ROOT, bboxFormat,
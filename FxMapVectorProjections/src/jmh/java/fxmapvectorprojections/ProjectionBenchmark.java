@@ -0,0 +1,99 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapvectorprojections;
+
+import fxmapcontrol.EquirectangularProjection;
+import fxmapcontrol.MapProjection;
+import fxmapcontrol.WebMercatorProjection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the batch transforms of the scalar projections with those of the Vector API projections. The
+ * forked benchmark JVMs are started with --add-modules jdk.incubator.vector, setup fails when the Vector API
+ * is nevertheless not available.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ProjectionBenchmark {
+
+    @Param({"WebMercator", "Equirectangular"})
+    private String projectionType;
+
+    @Param({"100000"})
+    private int count;
+
+    private MapProjection scalarProjection;
+    private MapProjection vectorProjection;
+    private double[] locations;
+    private double[] points;
+    private double[] result;
+
+    @Setup
+    public void setup() {
+        if (!VectorSupport.AVAILABLE) {
+            throw new IllegalStateException("Vector API not available");
+        }
+
+        if (projectionType.equals("WebMercator")) {
+            scalarProjection = new WebMercatorProjection();
+            vectorProjection = new VectorWebMercatorProjection();
+        } else {
+            scalarProjection = new EquirectangularProjection();
+            vectorProjection = new VectorEquirectangularProjection();
+        }
+
+        Random random = new Random(1);
+        locations = new double[2 * count];
+        points = new double[2 * count];
+        result = new double[2 * count];
+
+        for (int i = 0; i < locations.length; i += 2) {
+            locations[i] = random.nextDouble() * 170d - 85d;
+            locations[i + 1] = random.nextDouble() * 360d - 180d;
+        }
+
+        scalarProjection.locationToMap(locations, 0, points, 0, count);
+    }
+
+    @Benchmark
+    public double[] scalarLocationToMap() {
+        scalarProjection.locationToMap(locations, 0, result, 0, count);
+        return result;
+    }
+
+    @Benchmark
+    public double[] vectorLocationToMap() {
+        vectorProjection.locationToMap(locations, 0, result, 0, count);
+        return result;
+    }
+
+    @Benchmark
+    public double[] scalarMapToLocation() {
+        scalarProjection.mapToLocation(points, 0, result, 0, count);
+        return result;
+    }
+
+    @Benchmark
+    public double[] vectorMapToLocation() {
+        vectorProjection.mapToLocation(points, 0, result, 0, count);
+        return result;
+    }
+}
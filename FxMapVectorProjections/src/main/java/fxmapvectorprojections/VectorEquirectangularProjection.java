@@ -0,0 +1,45 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapvectorprojections;
+
+import fxmapcontrol.EquirectangularProjection;
+
+/**
+ * Equirectangular Projection with batch transforms implemented by the incubating Vector API.
+ * <p>
+ * Falls back to the scalar EquirectangularProjection implementation when the jdk.incubator.vector module is
+ * not available at runtime, and for small batches.
+ */
+public class VectorEquirectangularProjection extends EquirectangularProjection {
+
+    public VectorEquirectangularProjection() {
+    }
+
+    public VectorEquirectangularProjection(String crsId) {
+        super(crsId);
+    }
+
+    @Override
+    public void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        int done = 0;
+
+        if (VectorSupport.AVAILABLE && count >= VectorSupport.MIN_VECTOR_COUNT) {
+            done = VectorKernels.equirectangularLocationToMap(src, srcOffset, dst, dstOffset, count);
+        }
+
+        super.locationToMap(src, srcOffset + 2 * done, dst, dstOffset + 2 * done, count - done);
+    }
+
+    @Override
+    public void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        int done = 0;
+
+        if (VectorSupport.AVAILABLE && count >= VectorSupport.MIN_VECTOR_COUNT) {
+            done = VectorKernels.equirectangularMapToLocation(src, srcOffset, dst, dstOffset, count);
+        }
+
+        super.mapToLocation(src, srcOffset + 2 * done, dst, dstOffset + 2 * done, count - done);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapvectorprojections;
+
+import static fxmapcontrol.MapProjection.WGS84_METERS_PER_DEGREE;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementations of the batch projection transforms. Coordinates are processed in their
+ * interleaved layout: each vector is loaded from src, rearranged so that every (latitude, longitude) or
+ * (x, y) pair is swapped, transformed by per-lane constants and masked lanewise operations on the even or
+ * odd lanes, and stored to dst. The remaining points that do not fill a whole vector are returned to the
+ * caller for scalar processing.
+ * <p>
+ * Must only be accessed when VectorSupport.AVAILABLE is true.
+ */
+final class VectorKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorShuffle<Double> SWAP_PAIRS = VectorShuffle.fromOp(SPECIES, i -> i ^ 1);
+    private static final VectorMask<Double> EVEN_LANES = VectorMask.fromLong(SPECIES, 0x5555555555555555L);
+    private static final VectorMask<Double> ODD_LANES = VectorMask.fromLong(SPECIES, 0xAAAAAAAAAAAAAAAAL);
+
+    // Web Mercator forward: x = M * lon, y = M * 180/pi * log(tan(lat * pi/360 + pi/4))
+    private static final DoubleVector MERCATOR_LAT_SCALE = pairs(1d, Math.PI / 360d);
+    private static final DoubleVector MERCATOR_LAT_OFFSET = pairs(0d, Math.PI / 4d);
+    private static final DoubleVector MERCATOR_Y_SCALE = pairs(WGS84_METERS_PER_DEGREE, WGS84_METERS_PER_DEGREE * 180d / Math.PI);
+
+    // Web Mercator inverse: lat = 180/pi * atan(sinh(y / M * pi/180)), lon = x / M
+    private static final DoubleVector MERCATOR_Y_INVERSE_SCALE = pairs(Math.PI / 180d / WGS84_METERS_PER_DEGREE, 1d / WGS84_METERS_PER_DEGREE);
+    private static final DoubleVector MERCATOR_LAT_INVERSE_SCALE = pairs(180d / Math.PI, 1d);
+
+    private static final DoubleVector METERS_PER_DEGREE = DoubleVector.broadcast(SPECIES, WGS84_METERS_PER_DEGREE);
+    private static final DoubleVector DEGREES_PER_METER = DoubleVector.broadcast(SPECIES, 1d / WGS84_METERS_PER_DEGREE);
+
+    private VectorKernels() {
+    }
+
+    static boolean isSupported() {
+        return SPECIES.length() >= 2;
+    }
+
+    static int webMercatorLocationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        int length = SPECIES.loopBound(2 * count);
+
+        for (int i = 0; i < length; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, src, srcOffset + i).rearrange(SWAP_PAIRS);
+            VectorMask<Double> north = v.compare(VectorOperators.GE, 90d).and(ODD_LANES);
+            VectorMask<Double> south = v.compare(VectorOperators.LE, -90d).and(ODD_LANES);
+
+            v.fma(MERCATOR_LAT_SCALE, MERCATOR_LAT_OFFSET)
+                    .lanewise(VectorOperators.TAN, ODD_LANES)
+                    .lanewise(VectorOperators.LOG, ODD_LANES)
+                    .mul(MERCATOR_Y_SCALE)
+                    .blend(Double.POSITIVE_INFINITY, north)
+                    .blend(Double.NEGATIVE_INFINITY, south)
+                    .intoArray(dst, dstOffset + i);
+        }
+
+        return length / 2;
+    }
+
+    static int webMercatorMapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        int length = SPECIES.loopBound(2 * count);
+
+        for (int i = 0; i < length; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, src, srcOffset + i)
+                    .rearrange(SWAP_PAIRS)
+                    .mul(MERCATOR_Y_INVERSE_SCALE)
+                    .lanewise(VectorOperators.SINH, EVEN_LANES)
+                    .lanewise(VectorOperators.ATAN, EVEN_LANES)
+                    .mul(MERCATOR_LAT_INVERSE_SCALE)
+                    .intoArray(dst, dstOffset + i);
+        }
+
+        return length / 2;
+    }
+
+    static int equirectangularLocationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        int length = SPECIES.loopBound(2 * count);
+
+        for (int i = 0; i < length; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, src, srcOffset + i)
+                    .rearrange(SWAP_PAIRS)
+                    .mul(METERS_PER_DEGREE)
+                    .intoArray(dst, dstOffset + i);
+        }
+
+        return length / 2;
+    }
+
+    static int equirectangularMapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        int length = SPECIES.loopBound(2 * count);
+
+        for (int i = 0; i < length; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, src, srcOffset + i)
+                    .rearrange(SWAP_PAIRS)
+                    .mul(DEGREES_PER_METER)
+                    .intoArray(dst, dstOffset + i);
+        }
+
+        return length / 2;
+    }
+
+    private static DoubleVector pairs(double even, double odd) {
+        double[] values = new double[SPECIES.length()];
+
+        for (int i = 0; i < values.length; i += 2) {
+            values[i] = even;
+            values[i + 1] = odd;
+        }
+
+        return DoubleVector.fromArray(SPECIES, values, 0);
+    }
+}
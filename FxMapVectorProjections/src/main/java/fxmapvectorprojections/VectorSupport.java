@@ -0,0 +1,40 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapvectorprojections;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Detects whether the incubating Vector API is usable at runtime. VectorKernels is only loaded when the
+ * jdk.incubator.vector module is present in the boot layer, e.g. by running with
+ * --add-modules jdk.incubator.vector, and the preferred vector species holds at least two doubles, i.e.
+ * one interleaved coordinate pair.
+ */
+final class VectorSupport {
+
+    /**
+     * Batch sizes below this number of points are transformed by the scalar implementation.
+     */
+    static final int MIN_VECTOR_COUNT = 16;
+
+    static final boolean AVAILABLE = isVectorApiAvailable();
+
+    private VectorSupport() {
+    }
+
+    private static boolean isVectorApiAvailable() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+
+        try {
+            return VectorKernels.isSupported();
+        } catch (LinkageError ex) {
+            Logger.getLogger(VectorSupport.class.getName()).log(Level.WARNING, ex.toString());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * FX Map Control - https://github.com/ClemensFischer/FX-Map-Control
+ * © 2020 Clemens Fischer
+ */
+package fxmapvectorprojections;
+
+import fxmapcontrol.WebMercatorProjection;
+
+/**
+ * Web Mercator Projection with batch transforms implemented by the incubating Vector API.
+ * <p>
+ * Falls back to the scalar WebMercatorProjection implementation when the jdk.incubator.vector module is
+ * not available at runtime, and for small batches.
+ */
+public class VectorWebMercatorProjection extends WebMercatorProjection {
+
+    public VectorWebMercatorProjection() {
+    }
+
+    public VectorWebMercatorProjection(String crsId) {
+        super(crsId);
+    }
+
+    @Override
+    public void locationToMap(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        int done = 0;
+
+        if (VectorSupport.AVAILABLE && count >= VectorSupport.MIN_VECTOR_COUNT) {
+            done = VectorKernels.webMercatorLocationToMap(src, srcOffset, dst, dstOffset, count);
+        }
+
+        super.locationToMap(src, srcOffset + 2 * done, dst, dstOffset + 2 * done, count - done);
+    }
+
+    @Override
+    public void mapToLocation(double[] src, int srcOffset, double[] dst, int dstOffset, int count) {
+        int done = 0;
+
+        if (VectorSupport.AVAILABLE && count >= VectorSupport.MIN_VECTOR_COUNT) {
+            done = VectorKernels.webMercatorMapToLocation(src, srcOffset, dst, dstOffset, count);
+        }
+
+        super.mapToLocation(src, srcOffset + 2 * done, dst, dstOffset + 2 * done, count - done);
+    }
+}
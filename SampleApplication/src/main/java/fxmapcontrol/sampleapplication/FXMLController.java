@@ -16,6 +16,7 @@ import fxmapcontrol.StereographicProjection;
 import fxmapcontrol.TileImageLoader;
 import fxmapcontrol.WebMercatorProjection;
 import fxmapcontrol.WmsImageLayer;
+import fxmapcontrol.WmsTileLayer;
 import fxmapcontrol.WmtsTileLayer;
 import fxmapcontrol.WorldMercatorProjection;
 //import fxmapprojections.GeoToolsProjection;
@@ -135,6 +136,7 @@ public class FXMLController implements Initializable {
           "Seamarks", new MapTileLayer("Seamarks", "http://tiles.openseamap.org/seamark/{z}/{x}/{y}.png", 9, 18),
           "Stamen Terrain", new MapTileLayer("Stamen Terrain", "http://tile.stamen.com/terrain/{z}/{x}/{y}.png"),
           "OpenStreetMap WMS", new WmsImageLayer("http://ows.terrestris.de/osm/service"),
+          "OpenStreetMap WMS Tiles", new WmsTileLayer("OpenStreetMap WMS", "http://ows.terrestris.de/osm/service"),
           "ChartServer WMS", new ChartServerLayer("https://wms.sevencs.com:9090"),
           "TopPlusOpen WMS", new WmsImageLayer("https://sgx.geodatenzentrum.de/wms_topplus_open"),
           "TopPlusOpen WMTS", new WmtsTileLayer("TopPlusOpen", "https://sgx.geodatenzentrum.de/wmts_topplus_open/1.0.0/WMTSCapabilities.xml")